@@ -0,0 +1,72 @@
+package com.tutor.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tutor.dto.CourseDTO;
+import com.tutor.entity.Course;
+import com.tutor.service.impl.CourseServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程列表接口的响应序列化，响应体与CourseController.getAllCourses的页码分页结果相同
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseJsonBenchmark {
+
+    // 8为接口默认的每页条数，100为允许的最大条数
+    @Param({"8", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> response;
+
+    @Setup
+    public void setUp() throws Exception {
+        // 与Spring Boot自动配置的ObjectMapper一致：注册Java时间模块，日期输出为ISO字符串
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        CourseServiceImpl courseService = new CourseServiceImpl();
+        Fixtures.setField(courseService, "mediaService", Fixtures.mediaService());
+        Method toDTO = Fixtures.privateMethod(CourseServiceImpl.class, "convertToDTO", Course.class);
+        List<CourseDTO> courses = new ArrayList<>(pageSize);
+        for (Course course : Fixtures.courses(pageSize, 5)) {
+            courses.add((CourseDTO) toDTO.invoke(courseService, course));
+        }
+
+        response = new HashMap<>();
+        response.put("courses", courses);
+        response.put("currentPage", 0);
+        response.put("totalItems", 1000L);
+        response.put("totalPages", (1000 + pageSize - 1) / pageSize);
+    }
+
+    @Benchmark
+    public byte[] serializeCoursePage() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
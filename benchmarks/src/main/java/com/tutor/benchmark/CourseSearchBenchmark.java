@@ -0,0 +1,90 @@
+package com.tutor.benchmark;
+
+import com.tutor.entity.Course;
+import com.tutor.repository.CourseRepository;
+import com.tutor.service.CourseSearchIndex;
+import com.tutor.utils.SearchTokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程关键词搜索：查询分词和内存倒排索引的检索
+ * 索引通过CourseSearchIndex.rebuild从固定的课程数据构建，仓库由只实现分批读取的代理代替
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseSearchBenchmark {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 8);
+
+    @Param({"1000", "10000"})
+    public int courseCount;
+
+    // 单字查询走前缀展开，多词查询需要合并多个倒排列表
+    @Param({"数", "高中数学", "java spring 实战"})
+    public String keyword;
+
+    private CourseSearchIndex searchIndex;
+
+    @Setup
+    public void setUp() {
+        List<Course> courses = Fixtures.courses(courseCount, 50);
+        searchIndex = new CourseSearchIndex();
+        Fixtures.setField(searchIndex, "courseRepository", courseRepository(courses));
+        searchIndex.rebuild();
+    }
+
+    @Benchmark
+    public Object tokenizeQuery() {
+        return SearchTokenizer.tokenizeQuery(keyword);
+    }
+
+    @Benchmark
+    public Object search() {
+        return searchIndex.search(keyword, null, null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Object searchInCategory() {
+        return searchIndex.search(keyword, "数学", null, FIRST_PAGE);
+    }
+
+    // 重建索引只调用findByIdGreaterThanOrderByIdAsc，其余方法不会被调用
+    private static CourseRepository courseRepository(List<Course> courses) {
+        return (CourseRepository) Proxy.newProxyInstance(CourseRepository.class.getClassLoader(),
+                new Class<?>[]{CourseRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findByIdGreaterThanOrderByIdAsc")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long lastId = (Long) args[0];
+                    Pageable pageable = (Pageable) args[1];
+                    List<Course> batch = new ArrayList<>();
+                    for (Course course : courses) {
+                        if (course.getId() > lastId && batch.size() < pageable.getPageSize()) {
+                            batch.add(course);
+                        }
+                    }
+                    return batch;
+                });
+    }
+}
@@ -0,0 +1,121 @@
+package com.tutor.benchmark;
+
+import com.tutor.dto.ReviewDTO;
+import com.tutor.entity.Course;
+import com.tutor.entity.Order;
+import com.tutor.entity.Review;
+import com.tutor.entity.Teacher;
+import com.tutor.service.TeacherService;
+import com.tutor.service.impl.OrderServiceImpl;
+import com.tutor.service.impl.ReviewServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体到DTO的转换，按一页数据计时
+ * 转换方法是服务的私有方法，通过反射调用，反射本身的开销在每条记录几纳秒以内
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoConversionBenchmark {
+
+    @Param({"20"})
+    public int pageSize;
+
+    private OrderServiceImpl orderService;
+    private ReviewServiceImpl reviewService;
+    private Method orderToDTO;
+    private Method reviewToDTO;
+
+    private List<Order> orders;
+    private List<Review> reviews;
+
+    @Setup
+    public void setUp() {
+        orderService = new OrderServiceImpl();
+        Fixtures.setField(orderService, "mediaService", Fixtures.mediaService());
+        reviewService = new ReviewServiceImpl();
+        Fixtures.setField(reviewService, "mediaService", Fixtures.mediaService());
+
+        orderToDTO = Fixtures.privateMethod(OrderServiceImpl.class, "convertToDTO",
+                Order.class, boolean.class, ReviewDTO.class);
+        reviewToDTO = Fixtures.privateMethod(ReviewServiceImpl.class, "convertToDTO", Review.class);
+
+        List<Course> courses = Fixtures.courses(pageSize, 5);
+        orders = new ArrayList<>(pageSize);
+        reviews = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Order order = Fixtures.order(i + 1, courses.get(i), Fixtures.student(1000 + i));
+            orders.add(order);
+            reviews.add(Fixtures.review(i + 1, order));
+        }
+    }
+
+    @Benchmark
+    public void orderPage(Blackhole bh) throws Exception {
+        for (Order order : orders) {
+            bh.consume(orderToDTO.invoke(orderService, order, false, null));
+        }
+    }
+
+    @Benchmark
+    public void reviewPage(Blackhole bh) throws Exception {
+        for (Review review : reviews) {
+            bh.consume(reviewToDTO.invoke(reviewService, review));
+        }
+    }
+
+    /**
+     * 教师转换包含科目字符串的拆分，按科目个数分别测量
+     */
+    @Benchmark
+    public void teacherPage(TeacherPage page, Blackhole bh) throws Exception {
+        for (Teacher teacher : page.teachers) {
+            bh.consume(page.toDTO.invoke(page.teacherService, teacher));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TeacherPage {
+
+        @Param({"20"})
+        public int pageSize;
+
+        // 教师科目字符串中逗号分隔的科目个数
+        @Param({"1", "4", "8"})
+        public int subjectCount;
+
+        private TeacherService teacherService;
+        private Method toDTO;
+        private List<Teacher> teachers;
+
+        @Setup
+        public void setUp() {
+            teacherService = new TeacherService();
+            toDTO = Fixtures.privateMethod(TeacherService.class, "convertToDTO", Teacher.class);
+            teachers = new ArrayList<>(pageSize);
+            for (int i = 0; i < pageSize; i++) {
+                teachers.add(Fixtures.teacher(i + 1, subjectCount));
+            }
+        }
+    }
+}
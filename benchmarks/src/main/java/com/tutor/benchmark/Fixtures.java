@@ -0,0 +1,195 @@
+package com.tutor.benchmark;
+
+import com.tutor.entity.Course;
+import com.tutor.entity.Order;
+import com.tutor.entity.OrderStatus;
+import com.tutor.entity.Review;
+import com.tutor.entity.Teacher;
+import com.tutor.entity.User;
+import com.tutor.entity.UserRole;
+import com.tutor.service.MediaService;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试使用的固定数据
+ * 所有数据由固定种子生成，每次运行得到完全相同的对象，结果之间可以直接比较
+ */
+public final class Fixtures {
+
+    public static final long SEED = 20240601L;
+
+    // 与线上数据接近的取值：课程标题、分类和教师科目
+    private static final String[] CATEGORIES = {"数学", "英语", "物理", "化学", "语文", "编程"};
+    private static final String[] TITLES = {
+            "高中数学函数专题精讲", "初中英语语法系统梳理", "Java Spring Boot 实战入门",
+            "高考物理力学综合训练", "有机化学反应机理", "小学语文阅读理解提升"
+    };
+    private static final String[] SUBJECTS = {"数学", "英语", "物理", "化学", "语文", "生物", "历史", "地理"};
+    private static final String COVER_HASH = "3f79bb7b435b05321651daefd374cdc681dc06faa65e374e38337b88ca046dea";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    private Fixtures() {
+    }
+
+    public static User teacherUser(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("teacher" + id);
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOa4JRw5zL3ZyI1xY0h8mT5Nqf1m6cL3i");
+        user.setRealName("张老师" + id);
+        user.setEmail("teacher" + id + "@example.com");
+        user.setPhone("138" + String.format("%08d", id));
+        user.setRole(UserRole.TEACHER);
+        user.setCreateTime(BASE_TIME);
+        user.setUpdateTime(BASE_TIME);
+        return user;
+    }
+
+    public static User student(long id) {
+        User user = teacherUser(id);
+        user.setUsername("student" + id);
+        user.setRealName("李同学" + id);
+        user.setEmail("student" + id + "@example.com");
+        user.setRole(UserRole.USER);
+        return user;
+    }
+
+    /**
+     * 生成count门课程，教师在teachers个用户之间轮换
+     */
+    public static List<Course> courses(int count, int teachers) {
+        Random random = new Random(SEED);
+        List<User> teacherUsers = new ArrayList<>();
+        for (int i = 0; i < teachers; i++) {
+            teacherUsers.add(teacherUser(i + 1));
+        }
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int[] stars = new int[5];
+            int ratingCount = 0;
+            double ratingSum = 0;
+            for (int s = 0; s < stars.length; s++) {
+                stars[s] = random.nextInt(40);
+                ratingCount += stars[s];
+                ratingSum += stars[s] * (s + 1);
+            }
+            courses.add(Course.builder()
+                    .id((long) i + 1)
+                    .title(TITLES[i % TITLES.length] + " 第" + (i + 1) + "期")
+                    .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .duration(30 + random.nextInt(8) * 15)
+                    .price(50.0 + random.nextInt(450))
+                    .description("本课程面向有一定基础的同学，通过例题讲解和课后练习系统地梳理知识点，"
+                            + "帮助学生建立完整的知识框架并提升解题能力。")
+                    .cover(COVER_HASH)
+                    .rating(ratingCount == 0 ? 0.0 : Math.round(ratingSum / ratingCount * 10) / 10.0)
+                    .ratingSum(ratingSum)
+                    .ratingCount(ratingCount)
+                    .ratingStar1(stars[0])
+                    .ratingStar2(stars[1])
+                    .ratingStar3(stars[2])
+                    .ratingStar4(stars[3])
+                    .ratingStar5(stars[4])
+                    .studentCount(random.nextInt(500))
+                    .teacher(teacherUsers.get(i % teachers))
+                    .createdAt(BASE_TIME.plusHours(i))
+                    .updatedAt(BASE_TIME.plusHours(i))
+                    .build());
+        }
+        return courses;
+    }
+
+    public static Order order(long id, Course course, User student) {
+        return Order.builder()
+                .id(id)
+                .course(course)
+                .student(student)
+                .amount(course.getPrice())
+                .status(OrderStatus.COMPLETED.getValue())
+                .bookingTime(BASE_TIME.plusDays(id % 30))
+                .paymentTime(BASE_TIME.plusMinutes(id))
+                .completionTime(BASE_TIME.plusDays(id % 30).plusHours(2))
+                .remark("希望老师重点讲一下例题")
+                .createdAt(BASE_TIME.plusMinutes(id))
+                .updatedAt(BASE_TIME.plusMinutes(id))
+                .version(2L)
+                .build();
+    }
+
+    public static Review review(long id, Order order) {
+        return Review.builder()
+                .id(id)
+                .course(order.getCourse())
+                .student(order.getStudent())
+                .order(order)
+                .rating(4.5)
+                .content("老师讲解很清楚，例题选得很有代表性，课后作业批改也很及时。")
+                .createdAt(order.getCompletionTime().plusDays(1))
+                .updatedAt(order.getCompletionTime().plusDays(1))
+                .build();
+    }
+
+    /**
+     * 生成教师，subjectCount为逗号分隔的科目个数
+     */
+    public static Teacher teacher(long id, int subjectCount) {
+        Teacher teacher = new Teacher();
+        teacher.setId(id);
+        teacher.setUser(teacherUser(id));
+        teacher.setEducation("硕士");
+        teacher.setMajor("教育学");
+        teacher.setExperience(5);
+        StringBuilder subjects = new StringBuilder();
+        for (int i = 0; i < subjectCount; i++) {
+            if (i > 0) {
+                subjects.append(',');
+            }
+            subjects.append(SUBJECTS[i % SUBJECTS.length]);
+        }
+        teacher.setSubjects(subjects.toString());
+        teacher.setCreateTime(BASE_TIME);
+        teacher.setUpdateTime(BASE_TIME);
+        return teacher;
+    }
+
+    /**
+     * 配置了固定访问地址的媒体服务，封面URL不依赖当前请求
+     */
+    public static MediaService mediaService() {
+        MediaService mediaService = new MediaService();
+        setField(mediaService, "mediaBaseUrl", "https://cdn.example.com");
+        return mediaService;
+    }
+
+    /**
+     * 给Spring注入的字段赋值，基准测试不启动容器
+     */
+    public static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法设置字段 " + name, e);
+        }
+    }
+
+    /**
+     * 取得服务中的私有方法，用于直接测量DTO转换
+     */
+    public static Method privateMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("找不到方法 " + type.getSimpleName() + "." + name, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.tutor.benchmark;
+
+import com.tutor.utils.JwtClaims;
+import com.tutor.utils.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT签发和校验，每个需要认证的请求都会在JwtAuthenticationFilter中解析一次令牌
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        Fixtures.setField(jwtUtil, "secret", "tutorSystemSecretKey12345678901234567890");
+        Fixtures.setField(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken("student42", 42L, "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("student42", 42L, "USER");
+    }
+
+    /**
+     * 过滤器的做法：解析一次，之后从声明对象中读取用户名、ID和角色
+     */
+    @Benchmark
+    public Object parseToken() {
+        JwtClaims claims = jwtUtil.parseToken(token);
+        return claims.getUsername();
+    }
+
+    /**
+     * 按声明逐个提取，每次提取都会重新校验签名
+     */
+    @Benchmark
+    public Object extractClaimsSeparately() {
+        String username = jwtUtil.extractUsername(token);
+        String role = jwtUtil.extractRole(token);
+        return username.length() + role.length();
+    }
+}
@@ -86,6 +86,10 @@ export const api = {
   getQualifications: () => instance.get('/user/qualifications'),
   getQualificationsByStatus: (status) => instance.get(`/user/qualifications/status/${status}`),
   addQualification: (data) => instance.post('/user/qualifications', data),
+  uploadQualification: (formData) => instance.post('/user/qualifications/upload', formData, {
+    headers: { 'Content-Type': 'multipart/form-data' },
+    timeout: 60000
+  }),
   deleteQualification: (id) => instance.delete(`/user/qualifications/${id}`),
   
   // 管理员审核资质接口
@@ -98,6 +102,8 @@ export const api = {
   updateTeacher: (id, data) => instance.put(`/teachers/${id}`, data),
   deleteTeacher: (id) => instance.delete(`/teachers/${id}`),
   getTeacherQualifications: (id) => instance.get(`/teachers/${id}/qualifications`),
+  getTeacherRanking: (params) => instance.get('/teachers/ranking', { params }),
+  getTeacherStats: (id) => instance.get(`/teachers/${id}/stats`),
   
   // 课程相关接口
   getAllCourses: (params) => instance.get('/courses', { params }),
@@ -110,7 +116,8 @@ export const api = {
   getCourseDetail: (id) => instance.get(`/courses/${id}/detail`),
   
   // 订单相关接口
-  createOrder: (data) => instance.post('/orders', data),
+  createOrder: (data, idempotencyKey) => instance.post('/orders', data,
+    idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined),
   getOrderById: (id) => instance.get(`/orders/${id}`),
   getStudentOrders: (params) => instance.get('/orders/student', { params }),
   getTeacherOrders: (params) => instance.get('/orders/teacher', { params }),
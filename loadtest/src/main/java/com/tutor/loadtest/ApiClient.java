@@ -0,0 +1,94 @@
+package com.tutor.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 调用后端接口并记录耗时，每个虚拟用户持有一个实例
+ * 使用JDK自带的HttpURLConnection，连接由JDK按主机保持复用
+ */
+class ApiClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    private final String baseUrl;
+    private final Stats stats;
+
+    ApiClient(String baseUrl, Stats stats) {
+        this.baseUrl = baseUrl;
+        this.stats = stats;
+    }
+
+    /**
+     * 发送请求，endpoint为统计时使用的接口名（路径中的ID替换为占位符）
+     * 返回响应体，状态码不是2xx时返回null
+     */
+    JsonNode call(String endpoint, String method, String path, String token, Object body) {
+        long start = System.nanoTime();
+        int status = -1;
+        int queries = -1;
+        JsonNode result = null;
+        try {
+            HttpURLConnection conn = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            conn.setRequestMethod(method);
+            conn.setConnectTimeout(5000);
+            conn.setReadTimeout(30000);
+            if (token != null) {
+                conn.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            if (body != null) {
+                conn.setDoOutput(true);
+                conn.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = conn.getOutputStream()) {
+                    MAPPER.writeValue(out, body);
+                }
+            }
+            status = conn.getResponseCode();
+            String header = conn.getHeaderField(QUERY_COUNT_HEADER);
+            if (header != null) {
+                queries = Integer.parseInt(header);
+            }
+            // 读完响应体（包括错误响应），连接才能被复用
+            InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream();
+            byte[] bytes = in == null ? new byte[0] : readAll(in);
+            if (status >= 200 && status < 300 && bytes.length > 0) {
+                result = MAPPER.readTree(bytes);
+            }
+        } catch (IOException e) {
+            status = -1;
+        }
+        stats.record(endpoint, System.nanoTime() - start, status >= 200 && status < 300, queries);
+        return result;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.tutor.loadtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，通过命令行--name=value传入，未传入的使用默认值
+ * students、password和student-prefix需与服务端loadtest.data的配置一致
+ */
+class Config {
+
+    String baseUrl = "http://localhost:8080";
+    int users = 20;
+    int durationSeconds = 60;
+    int warmupSeconds = 10;
+    int students = 2000;
+    String studentPrefix = "lt_student_";
+    String password = "pass123";
+    double orderRatio = 0.3;
+    long thinkMillis = 0;
+    long seed = 42;
+    String report;
+
+    static Config parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为--name=value: " + arg);
+            }
+            int sep = arg.indexOf('=');
+            values.put(arg.substring(2, sep), arg.substring(sep + 1));
+        }
+        Config config = new Config();
+        config.baseUrl = values.getOrDefault("base-url", config.baseUrl).replaceAll("/+$", "");
+        config.users = Integer.parseInt(values.getOrDefault("users", String.valueOf(config.users)));
+        config.durationSeconds = Integer.parseInt(values.getOrDefault("duration", String.valueOf(config.durationSeconds)));
+        config.warmupSeconds = Integer.parseInt(values.getOrDefault("warmup", String.valueOf(config.warmupSeconds)));
+        config.students = Integer.parseInt(values.getOrDefault("students", String.valueOf(config.students)));
+        config.studentPrefix = values.getOrDefault("student-prefix", config.studentPrefix);
+        config.password = values.getOrDefault("password", config.password);
+        config.orderRatio = Double.parseDouble(values.getOrDefault("order-ratio", String.valueOf(config.orderRatio)));
+        config.thinkMillis = Long.parseLong(values.getOrDefault("think-ms", String.valueOf(config.thinkMillis)));
+        config.seed = Long.parseLong(values.getOrDefault("seed", String.valueOf(config.seed)));
+        config.report = values.get("report");
+        values.keySet().removeAll(Arrays.asList("base-url", "users", "duration", "warmup", "students",
+                "student-prefix", "password", "order-ratio", "think-ms", "seed", "report"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("未知参数: " + values.keySet());
+        }
+        if (config.users > config.students) {
+            throw new IllegalArgumentException("虚拟用户数不能超过学生账号数，否则多个用户共用账号会产生订单冲突");
+        }
+        return config;
+    }
+}
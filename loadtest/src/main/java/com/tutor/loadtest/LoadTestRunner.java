@@ -0,0 +1,45 @@
+package com.tutor.loadtest;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测入口：启动users个虚拟用户并发执行Scenario，热身后开始计时，结束时按接口输出
+ * 请求数、失败数、吞吐量、p50/p95/p99延迟和每个请求的平均SQL条数
+ *
+ * java -jar target/loadtest.jar --base-url=http://localhost:8080 --users=20 --duration=60
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.parse(args);
+        Stats stats = new Stats();
+
+        System.out.printf("压测 %s：%d 个虚拟用户，热身 %d s，计时 %d s，下单比例 %.0f%%%n",
+                config.baseUrl, config.users, config.warmupSeconds, config.durationSeconds, config.orderRatio * 100);
+
+        long deadline = System.currentTimeMillis() + (config.warmupSeconds + config.durationSeconds) * 1000L;
+        ExecutorService executor = Executors.newFixedThreadPool(config.users);
+        for (int i = 0; i < config.users; i++) {
+            executor.submit(new Scenario(new ApiClient(config.baseUrl, stats), config, i, deadline));
+        }
+        executor.shutdown();
+
+        Thread.sleep(config.warmupSeconds * 1000L);
+        stats.startRecording();
+        long start = System.nanoTime();
+        executor.awaitTermination(config.durationSeconds + 60L, TimeUnit.SECONDS);
+        stats.stopRecording();
+        executor.shutdownNow();
+        double seconds = Math.min((System.nanoTime() - start) / 1e9, config.durationSeconds);
+
+        System.out.println();
+        stats.print(System.out, seconds);
+        if (config.report != null) {
+            stats.writeCsv(Paths.get(config.report), seconds);
+            System.out.println("结果已写入 " + config.report);
+        }
+    }
+}
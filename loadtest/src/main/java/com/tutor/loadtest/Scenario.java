@@ -0,0 +1,133 @@
+package com.tutor.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个虚拟用户的操作序列：浏览课程 → 下单 → 支付 → 教师完成 → 评价
+ * 每轮先浏览课程列表（部分轮次按关键词搜索）、课程详情和评价，按order-ratio的比例继续走完下单流程。
+ * 每个虚拟用户固定使用一个学生账号，同一学生的订单依次完成，不会互相冲突
+ */
+class Scenario implements Runnable {
+
+    private static final String[] KEYWORDS = {"数学", "英语", "高中物理", "初中", "真题", "系统复习", "编程 入门", "化"};
+    private static final String[] REVIEWS = {"讲解清楚，收获很大", "老师很耐心", "节奏有点快，需要复习", "推荐"};
+
+    // 教师令牌在虚拟用户间共享，每个教师只登录一次
+    private static final Map<String, String> TEACHER_TOKENS = new ConcurrentHashMap<>();
+
+    private final ApiClient client;
+    private final Config config;
+    private final String studentUsername;
+    private final Random random;
+    private final long deadline;
+
+    private String studentToken;
+
+    Scenario(ApiClient client, Config config, int index, long deadline) {
+        this.client = client;
+        this.config = config;
+        this.studentUsername = config.studentPrefix + (index % config.students + 1);
+        this.random = new Random(config.seed + index);
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void run() {
+        studentToken = login(studentUsername);
+        if (studentToken == null) {
+            System.err.println("学生登录失败: " + studentUsername);
+            return;
+        }
+        while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+            iteration();
+            if (config.thinkMillis > 0) {
+                try {
+                    Thread.sleep(config.thinkMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void iteration() {
+        JsonNode page;
+        if (random.nextInt(100) < 30) {
+            String keyword = KEYWORDS[random.nextInt(KEYWORDS.length)];
+            page = client.call("GET /api/courses?keyword", "GET",
+                    "/api/courses?size=8&keyword=" + ApiClient.encode(keyword), studentToken, null);
+        } else {
+            page = client.call("GET /api/courses", "GET",
+                    "/api/courses?size=8&page=" + random.nextInt(20), studentToken, null);
+        }
+        JsonNode course = pick(page == null ? null : page.get("courses"));
+        if (course == null) {
+            return;
+        }
+        long courseId = course.get("id").asLong();
+        client.call("GET /api/courses/{id}/detail", "GET", "/api/courses/" + courseId + "/detail", studentToken, null);
+        client.call("GET /api/reviews/course/{id}", "GET", "/api/reviews/course/" + courseId + "?size=10", studentToken, null);
+
+        if (random.nextDouble() >= config.orderRatio) {
+            return;
+        }
+        Map<String, Object> create = new HashMap<>();
+        create.put("courseId", courseId);
+        create.put("bookingTime", LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.HOURS).toString());
+        create.put("remark", "压测订单");
+        JsonNode order = client.call("POST /api/orders", "POST", "/api/orders", studentToken, create);
+        if (order == null) {
+            // 学生在该课程已有未完成的订单（生成的数据中的已支付订单）时下单失败
+            return;
+        }
+        long orderId = order.get("id").asLong();
+        if (client.call("POST /api/orders/{id}/pay", "POST", "/api/orders/" + orderId + "/pay", studentToken, null) == null) {
+            return;
+        }
+        String teacherToken = teacherToken(course.get("teacherName").asText());
+        if (teacherToken == null || client.call("POST /api/orders/{id}/complete", "POST",
+                "/api/orders/" + orderId + "/complete", teacherToken, null) == null) {
+            return;
+        }
+        Map<String, Object> review = new HashMap<>();
+        review.put("orderId", orderId);
+        review.put("rating", 3 + random.nextInt(5) * 0.5);
+        review.put("content", REVIEWS[random.nextInt(REVIEWS.length)]);
+        client.call("POST /api/reviews", "POST", "/api/reviews", studentToken, review);
+        client.call("GET /api/orders/student", "GET", "/api/orders/student?size=10", studentToken, null);
+    }
+
+    // 生成的教师姓名与用户名相同
+    private String teacherToken(String username) {
+        String token = TEACHER_TOKENS.get(username);
+        if (token == null) {
+            token = login(username);
+            if (token != null) {
+                TEACHER_TOKENS.put(username, token);
+            }
+        }
+        return token;
+    }
+
+    private String login(String username) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("username", username);
+        body.put("password", config.password);
+        JsonNode result = client.call("POST /api/users/login", "POST", "/api/users/login", null, body);
+        return result == null ? null : result.get("token").asText();
+    }
+
+    private JsonNode pick(JsonNode array) {
+        if (array == null || !array.isArray() || array.size() == 0) {
+            return null;
+        }
+        return array.get(random.nextInt(array.size()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.tutor.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按接口汇总请求耗时、失败数和SQL条数
+ * 保存全部耗时样本，结束时排序计算分位数；单次压测的样本量在百万以内，内存开销可以接受
+ */
+class Stats {
+
+    private final Map<String, Endpoint> endpoints = new TreeMap<>();
+    private volatile boolean recording; // 热身阶段的请求不计入
+
+    void startRecording() {
+        recording = true;
+    }
+
+    void stopRecording() {
+        recording = false;
+    }
+
+    void record(String endpoint, long nanos, boolean success, int queries) {
+        if (recording) {
+            add(endpoint, nanos, success, queries);
+        }
+    }
+
+    private synchronized void add(String endpoint, long nanos, boolean success, int queries) {
+        endpoints.computeIfAbsent(endpoint, name -> new Endpoint()).add(nanos, success, queries);
+    }
+
+    /**
+     * 输出汇总表，seconds为计入统计的运行时长
+     */
+    synchronized void print(PrintStream out, double seconds) {
+        out.printf("%-36s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)", "queries");
+        long total = 0;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint e = entry.getValue();
+            total += e.count;
+            out.printf("%-36s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9s%n",
+                    entry.getKey(), e.count, e.errors, e.count / seconds,
+                    e.percentile(0.50), e.percentile(0.95), e.percentile(0.99), e.percentile(1.0), e.queries());
+        }
+        out.printf("total %d requests in %.0f s, %.1f req/s%n", total, seconds, total / seconds);
+    }
+
+    synchronized void writeCsv(Path path, double seconds) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("endpoint,requests,errors,req_per_sec,p50_ms,p95_ms,p99_ms,max_ms,queries_per_request\n");
+            for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+                Endpoint e = entry.getValue();
+                out.write(String.format("%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%s%n",
+                        entry.getKey(), e.count, e.errors, e.count / seconds,
+                        e.percentile(0.50), e.percentile(0.95), e.percentile(0.99), e.percentile(1.0), e.queries()));
+            }
+        }
+    }
+
+    private static class Endpoint {
+
+        private long[] samples = new long[1024];
+        private int count;
+        private int errors;
+        private long queryTotal;
+        private int queryCount; // 带有查询数响应头的请求数
+        private boolean sorted;
+
+        void add(long nanos, boolean success, int queries) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+            sorted = false;
+            if (!success) {
+                errors++;
+            }
+            if (queries >= 0) {
+                queryTotal += queries;
+                queryCount++;
+            }
+        }
+
+        double percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(samples, 0, count);
+                sorted = true;
+            }
+            int index = (int) Math.ceil(p * count) - 1;
+            return samples[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+        }
+
+        // 服务端未开启查询计数时显示为-
+        String queries() {
+            return queryCount == 0 ? "-" : String.format("%.1f", (double) queryTotal / queryCount);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.tutor.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 进程内缓存配置
+ * 每个缓存使用独立的Caffeine规格（容量上限、过期时间），可通过cache.specs.<缓存名>覆盖；
+ * 缓存的写入和移除在事务提交后执行，避免事务回滚或并发读取留下旧数据。
+ * 需要多实例共享缓存时替换这里的CacheManager即可，业务代码只依赖Spring Cache注解
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String COURSES = "courses";
+    public static final String TEACHERS = "teachers";
+    public static final String USER_PROFILES = "userProfiles";
+    public static final String COURSE_DETAILS = "courseDetails";
+
+    private static final String[] CACHE_NAMES = {COURSES, TEACHERS, USER_PROFILES, COURSE_DETAILS};
+
+    private static final String DEFAULT_SPEC = "maximumSize=10000,expireAfterWrite=10m";
+
+    @Bean
+    public CacheManager cacheManager(Environment environment) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setAllowNullValues(false);
+        caffeineCacheManager.setCacheSpecification(environment.getProperty("cache.default-spec", DEFAULT_SPEC));
+        for (String name : CACHE_NAMES) {
+            String spec = environment.getProperty("cache.specs." + name, DEFAULT_SPEC);
+            caffeineCacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+        }
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,60 @@
+package com.tutor.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 定期输出Hibernate二级缓存和查询缓存的命中统计
+ * 由hibernate-cache.statistics开启，统计本身由metrics.hibernate-statistics（对应hibernate.generate_statistics）收集，数值为启动以来的累计值
+ */
+@Component
+public class HibernateCacheStatsLogger {
+
+    private static final Logger log = LoggerFactory.getLogger(HibernateCacheStatsLogger.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${hibernate-cache.statistics:false}")
+    private boolean enabled;
+
+    @Scheduled(fixedDelayString = "${hibernate-cache.stats-log-interval-ms:300000}",
+            initialDelayString = "${hibernate-cache.stats-log-interval-ms:300000}")
+    public void logStatistics() {
+        if (!enabled) {
+            return;
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = statistics.getCacheRegionStatistics(region);
+            if (regionStats == null) {
+                continue;
+            }
+            log.info("缓存区域 {}: 命中 {}，未命中 {}，写入 {}，命中率 {}",
+                    region, regionStats.getHitCount(), regionStats.getMissCount(), regionStats.getPutCount(),
+                    hitRate(regionStats.getHitCount(), regionStats.getMissCount()));
+        }
+        log.info("查询缓存: 命中 {}，未命中 {}，写入 {}，命中率 {}；数据库查询 {} 次，实体加载 {} 次",
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                hitRate(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()),
+                statistics.getQueryExecutionCount(), statistics.getEntityLoadCount());
+    }
+
+    private static String hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? "-" : String.format("%.1f%%", hits * 100.0 / total);
+    }
+}
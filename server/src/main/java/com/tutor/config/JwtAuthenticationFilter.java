@@ -1,13 +1,17 @@
 package com.tutor.config;
 
+import com.tutor.service.UserStatusCache;
+import com.tutor.utils.JwtClaims;
 import com.tutor.utils.JwtUtil;
 import com.tutor.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -20,63 +24,72 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // 父类的logger是commons-logging，不支持参数占位符；每个请求都经过这里，日志参数只在级别开启时格式化
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserRepository userRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserStatusCache userStatusCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        final String requestURI = request.getRequestURI();
         final String authorizationHeader = request.getHeader("Authorization");
 
-        logger.debug("Processing request: " + requestURI);
-        logger.debug("Authorization header: " + (authorizationHeader != null ? "present" : "not present"));
+        if (log.isDebugEnabled()) {
+            log.debug("Processing request: {}", request.getRequestURI());
+            log.debug("Authorization header: {}", authorizationHeader != null ? "present" : "not present");
+        }
 
-        String username = null;
-        String jwt = null;
+        JwtClaims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
-                logger.debug("Extracted username from token: " + username);
+                // 签名和过期时间在解析时一并校验
+                claims = jwtUtil.parseToken(jwt);
+                log.debug("Extracted username from token: {}", claims.getUsername());
             } catch (Exception e) {
-                logger.error("JWT token is invalid: " + e.getMessage());
+                log.error("JWT token is invalid: {}", e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            logger.debug("Loading user details for: " + username);
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            try {
-                if (jwtUtil.validateToken(jwt, userDetails)) {
-                    logger.debug("Token validated successfully for user: " + username);
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    
-                    userRepository.findByUsername(username).ifPresent(user -> {
-                        logger.debug("Setting user ID in authentication details: " + user.getId());
-                        authentication.setDetails(user.getId().toString());
-                    });
-                    
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    logger.debug("Authentication set in SecurityContext");
-                } else {
-                    logger.warn("Token validation failed for user: " + username);
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = claims.getUsername();
+            Long userId = claims.getUserId();
+            String role = claims.getRole();
+            
+            // 兼容不包含用户ID的旧令牌
+            if (userId == null || role == null) {
+                com.tutor.entity.User user = userRepository.findByUsername(username).orElse(null);
+                if (user != null) {
+                    userId = user.getId();
+                    role = user.getRole().name();
                 }
-            } catch (Exception e) {
-                logger.error("Error validating token: " + e.getMessage(), e);
+            }
+            
+            if (userId != null && userStatusCache.isActive(userId, role)) {
+                UserDetails userDetails = User.withUsername(username)
+                        .password("")
+                        .authorities(new SimpleGrantedAuthority("ROLE_" + role))
+                        .build();
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+                authentication.setDetails(userId.toString());
+                
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                log.debug("Authentication set in SecurityContext");
+            } else {
+                log.warn("Token validation failed for user: {}", username);
             }
         }
         
         chain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+}
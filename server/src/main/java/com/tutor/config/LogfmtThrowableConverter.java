@@ -0,0 +1,20 @@
+package com.tutor.config;
+
+import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * 把异常栈输出为同一行的exception="..."字段（logback-spring.xml中的%qex）
+ * 异常栈的换行转义为\n，没有异常时输出空串；支持与%ex相同的选项，如%qex{30}限制栈的行数
+ */
+public class LogfmtThrowableConverter extends ThrowableProxyConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        String stackTrace = super.convert(event);
+        if (stackTrace.isEmpty()) {
+            return stackTrace;
+        }
+        return " exception=" + LogfmtMessageConverter.quote(stackTrace.trim());
+    }
+}
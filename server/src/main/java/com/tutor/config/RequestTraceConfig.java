@@ -0,0 +1,92 @@
+package com.tutor.config;
+
+import com.tutor.utils.SqlStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按比例采样的请求跟踪日志
+ * 每个请求开始时按request-trace.sample-rate决定是否采样，采样的请求结束后输出一行key=value格式的日志，
+ * 包括接口、状态码、耗时以及SQL统计（sql-stats开启时）；耗时超过slow-threshold-ms的请求不论是否采样都以WARN输出。
+ * 未采样且不慢的请求只多一次取随机数和计时，不拼接日志
+ */
+@Configuration
+@ConditionalOnProperty(name = "request-trace.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTraceConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestTraceFilter> requestTraceFilter(
+            @Value("${request-trace.sample-rate:1.0}") double sampleRate,
+            @Value("${request-trace.slow-threshold-ms:1000}") long slowThresholdMs) {
+        FilterRegistrationBean<RequestTraceFilter> registration =
+                new FilterRegistrationBean<>(new RequestTraceFilter(sampleRate, slowThresholdMs));
+        // 紧挨在SqlStatsFilter内层，结束时本次请求的SQL统计仍绑定在当前线程
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    static class RequestTraceFilter extends OncePerRequestFilter {
+
+        private static final Logger log = LoggerFactory.getLogger(RequestTraceFilter.class);
+
+        private final double sampleRate;
+        private final long slowThresholdNanos;
+
+        RequestTraceFilter(double sampleRate, long slowThresholdMs) {
+            this.sampleRate = sampleRate;
+            this.slowThresholdNanos = slowThresholdMs * 1_000_000L;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            boolean sampled = sampleRate >= 1.0
+                    || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+            long start = System.nanoTime();
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                boolean slow = elapsed >= slowThresholdNanos;
+                if (slow ? log.isWarnEnabled() : sampled && log.isInfoEnabled()) {
+                    trace(request, response, elapsed, slow);
+                }
+            }
+        }
+
+        private static void trace(HttpServletRequest request, HttpServletResponse response, long elapsed, boolean slow) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            SqlStats stats = SqlStats.current();
+            Object[] args = {
+                    request.getMethod(),
+                    pattern != null ? pattern : "-",
+                    request.getRequestURI(),
+                    response.getStatus(),
+                    elapsed / 1_000_000L,
+                    stats != null ? stats.getStatements() : -1,
+                    stats != null ? stats.getRows() : -1,
+                    stats != null ? stats.getNanos() / 1_000_000L : -1
+            };
+            if (slow) {
+                log.warn("slow_request method={} endpoint={} path={} status={} duration_ms={} sql={} rows={} db_ms={}", args);
+            } else {
+                log.info("request method={} endpoint={} path={} status={} duration_ms={} sql={} rows={} db_ms={}", args);
+            }
+        }
+    }
+}
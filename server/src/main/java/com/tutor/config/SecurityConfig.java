@@ -48,6 +48,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .csrf().disable()
             .authorizeRequests()
             .antMatchers("/api/users/register", "/api/users/login").permitAll()
+            // 管理端口只监听本机（management.server），健康检查和Prometheus抓取不需要登录
+            .antMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
+            .antMatchers("/actuator/**").hasRole("ADMIN")
             
             // 资质证书API安全规则
             .antMatchers(HttpMethod.GET, "/api/qualifications").authenticated()
@@ -56,6 +59,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .antMatchers("/api/admin/qualifications/**").hasAnyRole("ADMIN")
             
             // 教师API安全规则
+            .antMatchers(HttpMethod.GET, "/api/teachers/*/stats").authenticated()
             .antMatchers(HttpMethod.GET, "/api/teachers").permitAll()
             .antMatchers(HttpMethod.GET, "/api/teachers/**").permitAll()
             .antMatchers(HttpMethod.POST, "/api/teachers").hasAnyRole("ADMIN")
@@ -66,6 +70,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .antMatchers("/api/teacher/**").hasRole("TEACHER")
             .antMatchers("/api/user/profile/**").authenticated()
             .antMatchers("/api/user/qualifications/**").authenticated()
+            .antMatchers(HttpMethod.GET, "/api/media/**").permitAll()
+            .antMatchers(HttpMethod.GET, "/api/qualifications/files/**").permitAll()
             .antMatchers(HttpMethod.GET, "/api/courses").permitAll()
             .antMatchers(HttpMethod.GET, "/api/courses/**").permitAll()
             .antMatchers(HttpMethod.PUT, "/api/courses/**").hasRole("TEACHER")
@@ -0,0 +1,69 @@
+package com.tutor.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 业务层方法计时
+ * com.tutor.service及com.tutor.service.impl中Spring Bean的公共方法经过代理时记录到tutor.service计时器，
+ * 标签为类名、方法名和异常类名（正常返回为none）。同一个Bean内部的自调用不经过代理，不单独计时。
+ * 控制器由Actuator的http.server.requests按接口计时，这里不重复记录
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "metrics.service-timing.enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceMetricsAspect {
+
+    public static final String METRIC_NAME = "tutor.service";
+
+    // 切面在创建其他Bean之前就要实例化，注册表延迟到第一次调用时获取，避免与MeterBinder之间的循环依赖
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // 正常返回的计时器按方法缓存，避免每次调用都按名称和标签查找
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.tutor.service.*.*(..)) || execution(public * com.tutor.service.impl.*.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            successTimer(joinPoint).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(joinPoint, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer successTimer(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = successTimers.get(method);
+        if (timer == null) {
+            timer = successTimers.computeIfAbsent(method, key -> timer(joinPoint, "none"));
+        }
+        return timer;
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("业务层方法耗时")
+                .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(meterRegistry.getObject());
+    }
+}
@@ -0,0 +1,95 @@
+package com.tutor.config;
+
+import com.tutor.service.SqlStatsRegistry;
+import com.tutor.utils.SqlStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * 按请求统计SQL：数据源包装为SqlStatsDataSource，过滤器在请求期间绑定SqlStats，
+ * 结束后按接口（请求方法 + 路径模板）汇总到SqlStatsRegistry。
+ * sql-stats.response-headers开启时在响应头中返回本次请求的统计，响应体需要先缓存，只在开发和压测时开启
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatsConfig {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_ROWS_HEADER = "X-Query-Rows";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    @Bean
+    public static BeanPostProcessor sqlStatsDataSourceWrapper() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof SqlStatsDataSource)) {
+                    return new SqlStatsDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(
+            SqlStatsRegistry sqlStatsRegistry,
+            @Value("${sql-stats.response-headers:false}") boolean responseHeaders) {
+        FilterRegistrationBean<SqlStatsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatsFilter(sqlStatsRegistry, responseHeaders));
+        // 放在最外层，认证过滤器中的查询也计入
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    static class SqlStatsFilter extends OncePerRequestFilter {
+
+        private final SqlStatsRegistry sqlStatsRegistry;
+        private final boolean responseHeaders;
+
+        SqlStatsFilter(SqlStatsRegistry sqlStatsRegistry, boolean responseHeaders) {
+            this.sqlStatsRegistry = sqlStatsRegistry;
+            this.responseHeaders = responseHeaders;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            SqlStats stats = SqlStats.begin();
+            ContentCachingResponseWrapper wrapper = responseHeaders ? new ContentCachingResponseWrapper(response) : null;
+            try {
+                chain.doFilter(request, wrapper != null ? wrapper : response);
+            } finally {
+                SqlStats.end();
+                sqlStatsRegistry.record(endpoint(request), stats);
+                if (wrapper != null) {
+                    wrapper.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getStatements()));
+                    wrapper.setHeader(QUERY_ROWS_HEADER, String.valueOf(stats.getRows()));
+                    wrapper.setHeader(QUERY_TIME_HEADER, String.format("%.2f", stats.getNanos() / 1_000_000.0));
+                    wrapper.copyBodyToResponse();
+                }
+            }
+        }
+
+        // 使用控制器的路径模板，未匹配到控制器的请求（认证失败、404等）归为一类
+        private static String endpoint(HttpServletRequest request) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return request.getMethod() + " " + (pattern != null ? pattern : "[unmapped]");
+        }
+    }
+}
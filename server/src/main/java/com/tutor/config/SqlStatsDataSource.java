@@ -0,0 +1,175 @@
+package com.tutor.config;
+
+import com.tutor.utils.SqlStats;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 统计SQL执行情况的数据源包装
+ * 连接、语句和结果集都用JDK动态代理包装：语句的execute*方法计数并计时，结果集的next()计数读取的行数，
+ * 结果累加到当前线程绑定的SqlStats。Hibernate、JdbcTemplate和Flyway都经过这里，二级缓存命中不产生SQL
+ */
+public class SqlStatsDataSource extends DelegatingDataSource {
+
+    private static final ClassLoader CLASS_LOADER = SqlStatsDataSource.class.getClassLoader();
+
+    public SqlStatsDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    /**
+     * 代理对象只与自身相等；Hibernate用语句和结果集作为键登记资源，不能把equals转发给被代理对象
+     */
+    private abstract static class DelegatingHandler implements InvocationHandler {
+
+        final Object target;
+
+        DelegatingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return target.toString();
+                default:
+                    return handle(proxy, method, args);
+            }
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private static class ConnectionHandler extends DelegatingHandler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return wrapStatement(Statement.class, (Statement) result, (Connection) proxy, null);
+                case "prepareStatement":
+                    return wrapStatement(PreparedStatement.class, (Statement) result, (Connection) proxy, (String) args[0]);
+                case "prepareCall":
+                    return wrapStatement(CallableStatement.class, (Statement) result, (Connection) proxy, (String) args[0]);
+                default:
+                    return result;
+            }
+        }
+
+        private static Statement wrapStatement(Class<? extends Statement> type, Statement statement,
+                                               Connection connection, String sql) {
+            return (Statement) Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[]{type},
+                    new StatementHandler(statement, connection, sql));
+        }
+    }
+
+    private static class StatementHandler extends DelegatingHandler {
+
+        private final Connection connection;
+        private final String sql; // 预编译语句的SQL，普通语句为null
+
+        StatementHandler(Statement target, Connection connection, String sql) {
+            super(target);
+            this.connection = connection;
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return connection;
+            }
+            SqlStats stats = SqlStats.current();
+            if (stats == null || !name.startsWith("execute")) {
+                return wrapResultSet(delegate(method, args), (Statement) proxy);
+            }
+            long start = System.nanoTime();
+            try {
+                return wrapResultSet(delegate(method, args), (Statement) proxy);
+            } finally {
+                String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                stats.onExecute(executed, System.nanoTime() - start);
+            }
+        }
+
+        // executeQuery、getResultSet、getGeneratedKeys返回的结果集需要包装以统计行数
+        private static Object wrapResultSet(Object result, Statement statement) {
+            if (!(result instanceof ResultSet)) {
+                return result;
+            }
+            return Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler((ResultSet) result, statement));
+        }
+    }
+
+    private static class ResultSetHandler extends DelegatingHandler {
+
+        private final Statement statement;
+
+        ResultSetHandler(ResultSet target, Statement statement) {
+            super(target);
+            this.statement = statement;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getStatement")) {
+                return statement;
+            }
+            Object result = delegate(method, args);
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                SqlStats stats = SqlStats.current();
+                if (stats != null) {
+                    stats.onRow();
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.tutor.config;
+
+import com.tutor.utils.BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public BlobStore mediaBlobStore(@Value("${storage.media-dir:data/media}") String mediaDir) {
+        return new BlobStore(Paths.get(mediaDir));
+    }
+
+    @Bean
+    public BlobStore certificateBlobStore(@Value("${storage.certificate-dir:data/certificates}") String certificateDir) {
+        return new BlobStore(Paths.get(certificateDir));
+    }
+}
@@ -0,0 +1,62 @@
+package com.tutor.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+public class AdminCacheController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * 获取各缓存的条目数和命中、未命中、淘汰统计
+     */
+    @GetMapping
+    public ResponseEntity<?> getCacheStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Object nativeCache = cacheManager.getCache(name).getNativeCache();
+            if (!(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache)) {
+                continue;
+            }
+            com.github.benmanes.caffeine.cache.Cache<?, ?> cache = (com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache;
+            CacheStats stats = cache.stats();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("size", cache.estimatedSize());
+            item.put("hitCount", stats.hitCount());
+            item.put("missCount", stats.missCount());
+            item.put("hitRate", stats.hitRate());
+            item.put("evictionCount", stats.evictionCount());
+            item.put("loadFailureCount", stats.loadFailureCount());
+            item.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+            response.put(name, item);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 清空指定缓存
+     */
+    @DeleteMapping("/{name}")
+    public ResponseEntity<?> clearCache(@PathVariable String name) {
+        Map<String, String> response = new HashMap<>();
+        if (!cacheManager.getCacheNames().contains(name)) {
+            response.put("error", "缓存不存在: " + name);
+            return ResponseEntity.badRequest().body(response);
+        }
+        Cache cache = cacheManager.getCache(name);
+        cache.clear();
+        response.put("message", "缓存已清空");
+        return ResponseEntity.ok(response);
+    }
+}
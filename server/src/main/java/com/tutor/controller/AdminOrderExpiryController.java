@@ -0,0 +1,22 @@
+package com.tutor.controller;
+
+import com.tutor.service.OrderExpiryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/order-expiry")
+public class AdminOrderExpiryController {
+
+    @Autowired
+    private OrderExpiryService orderExpiryService;
+
+    /**
+     * 获取待支付订单过期任务的运行指标（本实例）
+     */
+    @GetMapping
+    public ResponseEntity<?> getMetrics() {
+        return ResponseEntity.ok(orderExpiryService.getMetrics());
+    }
+}
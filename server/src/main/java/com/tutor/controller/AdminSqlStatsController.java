@@ -0,0 +1,36 @@
+package com.tutor.controller;
+
+import com.tutor.service.SqlStatsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/sql-stats")
+public class AdminSqlStatsController {
+
+    @Autowired
+    private SqlStatsRegistry sqlStatsRegistry;
+
+    /**
+     * 获取各接口的SQL统计（本实例，启动或上次清空以来的累计值）
+     */
+    @GetMapping
+    public ResponseEntity<?> getSqlStats() {
+        return ResponseEntity.ok(sqlStatsRegistry.getMetrics());
+    }
+
+    /**
+     * 清空统计，便于对比修改前后的数据
+     */
+    @DeleteMapping
+    public ResponseEntity<?> resetSqlStats() {
+        sqlStatsRegistry.reset();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "SQL统计已清空");
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,24 +2,23 @@ package com.tutor.controller;
 
 import com.tutor.dto.CourseCreateDTO;
 import com.tutor.dto.CourseDTO;
-import com.tutor.dto.QualificationDTO;
-import com.tutor.dto.TeacherQualificationsDTO;
+import com.tutor.dto.CourseDetailDTO;
 import com.tutor.entity.User;
 import com.tutor.exception.ResourceNotFoundException;
 import com.tutor.service.CourseService;
-import com.tutor.service.QualificationService;
-import com.tutor.service.TeacherService;
+import com.tutor.utils.PageCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -28,16 +27,27 @@ import java.util.Map;
 public class CourseController {
     
     private final CourseService courseService;
-    private final QualificationService qualificationService;
-    private final TeacherService teacherService;
     
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllCourses(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "8") int size) {
         
+        // 传入cursor参数时使用游标分页；关键词搜索按相关度排序，仍使用页码分页
+        if (cursor != null && !StringUtils.hasText(keyword)) {
+            Slice<CourseDTO> courses = courseService.getCoursesAfter(category, cursor, size);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("courses", courses.getContent());
+            response.put("nextCursor", PageCursor.next(courses, PageCursor.Kind.COURSES, CourseDTO::getCreatedAt, CourseDTO::getId));
+            response.put("hasMore", courses.hasNext());
+            
+            return ResponseEntity.ok(response);
+        }
+        
         Page<CourseDTO> coursePage = courseService.getAllCourses(category, keyword, page, size);
         
         Map<String, Object> response = new HashMap<>();
@@ -77,27 +87,8 @@ public class CourseController {
     }
     
     @GetMapping("/{id}/detail")
-    public ResponseEntity<Map<String, Object>> getCourseDetail(@PathVariable Long id) {
-        CourseDTO course = courseService.getCourseById(id);
-            
-        // 获取教师资质信息
-        List<QualificationDTO> qualifications = qualificationService.getUserQualifications(course.getTeacherId());
-        
-        // 获取教师学历和专业等详细资质信息 - 使用userId而不是teacherId
-        TeacherQualificationsDTO teacherQualifications = teacherService.getTeacherQualificationsByUserId(course.getTeacherId());
-        
-        // 组合返回数据
-        Map<String, Object> response = new HashMap<>();
-        response.put("course", course);
-        response.put("teacherQualifications", qualifications);
-        
-        // 只返回教师的学历和专业信息
-        Map<String, String> teacherEduInfo = new HashMap<>();
-        teacherEduInfo.put("education", teacherQualifications.getEducation());
-        teacherEduInfo.put("major", teacherQualifications.getMajor());
-        response.put("teacherInfo", teacherEduInfo);
-        
-        return ResponseEntity.ok(response);
+    public ResponseEntity<CourseDetailDTO> getCourseDetail(@PathVariable Long id) {
+        return ResponseEntity.ok(courseService.getCourseDetail(id));
     }
     
     @PostMapping
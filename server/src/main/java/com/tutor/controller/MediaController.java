@@ -0,0 +1,56 @@
+package com.tutor.controller;
+
+import com.tutor.service.MediaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/media")
+public class MediaController {
+
+    @Autowired
+    private MediaService mediaService;
+
+    /**
+     * 获取图片内容，内容按哈希寻址，因此可以被浏览器永久缓存
+     * 只以保存的图片类型返回并禁止浏览器猜测类型；不是图片的历史文件作为附件下载，不在站点下渲染
+     */
+    @GetMapping("/{hash}")
+    public ResponseEntity<Resource> getMedia(
+            @PathVariable String hash,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) throws IOException {
+        String etag = "\"" + hash + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        
+        InputStream content = mediaService.open(hash);
+        MediaType imageType = mediaService.getImageType(hash);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Content-Type-Options", "nosniff");
+        if (imageType != null) {
+            response.contentType(imageType);
+        } else {
+            response.contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(hash).build().toString());
+        }
+        return response
+                .contentLength(mediaService.size(hash))
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(new InputStreamResource(content));
+    }
+}
@@ -3,8 +3,10 @@ package com.tutor.controller;
 import com.tutor.dto.OrderCreateDTO;
 import com.tutor.dto.OrderDTO;
 import com.tutor.service.OrderService;
+import com.tutor.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,10 +29,11 @@ public class OrderController {
      */
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> createOrder(@RequestBody OrderCreateDTO orderCreateDTO) {
+    public ResponseEntity<?> createOrder(@RequestBody OrderCreateDTO orderCreateDTO,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             Long userId = getCurrentUserId();
-            OrderDTO createdOrder = orderService.createOrder(orderCreateDTO, userId);
+            OrderDTO createdOrder = orderService.createOrder(orderCreateDTO, userId, idempotencyKey);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
@@ -64,10 +67,14 @@ public class OrderController {
     public ResponseEntity<?> getStudentOrders(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
             Long userId = getCurrentUserId();
+            if (cursor != null) {
+                return ResponseEntity.ok(cursorResponse(orderService.getStudentOrdersAfter(userId, status, keyword, cursor, size)));
+            }
             Page<OrderDTO> orders = orderService.getStudentOrders(userId, status, keyword, page, size);
             
             Map<String, Object> response = new HashMap<>();
@@ -92,10 +99,14 @@ public class OrderController {
     public ResponseEntity<?> getTeacherOrders(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
             Long userId = getCurrentUserId();
+            if (cursor != null) {
+                return ResponseEntity.ok(cursorResponse(orderService.getTeacherOrdersAfter(userId, status, keyword, cursor, size)));
+            }
             Page<OrderDTO> orders = orderService.getTeacherOrders(userId, status, keyword, page, size);
             
             Map<String, Object> response = new HashMap<>();
@@ -165,6 +176,15 @@ public class OrderController {
         }
     }
 
+    // 游标分页的响应，不包含总数
+    private Map<String, Object> cursorResponse(Slice<OrderDTO> orders) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("orders", orders.getContent());
+        response.put("nextCursor", PageCursor.next(orders, PageCursor.Kind.ORDERS, OrderDTO::getCreatedAt, OrderDTO::getId));
+        response.put("hasMore", orders.hasNext());
+        return response;
+    }
+
     // 获取当前用户ID
     private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
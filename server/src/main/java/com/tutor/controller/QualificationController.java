@@ -1,13 +1,18 @@
 package com.tutor.controller;
 
 import com.tutor.dto.QualificationDTO;
+import com.tutor.dto.UploadSessionDTO;
+import com.tutor.service.CertificateFileService;
 import com.tutor.service.QualificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +24,9 @@ public class QualificationController {
     @Autowired
     private QualificationService qualificationService;
     
+    @Autowired
+    private CertificateFileService certificateFileService;
+    
     /**
      * 获取当前用户的所有资质证书
      */
@@ -67,6 +75,112 @@ public class QualificationController {
         }
     }
     
+    /**
+     * 以multipart方式上传资质证书，文件直接写入磁盘
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<?> uploadQualification(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam String name,
+            @RequestParam String type,
+            @RequestParam String issuer,
+            @RequestParam(required = false) String description) {
+        try {
+            Long userId = getCurrentUserId();
+            
+            CertificateFileService.StoredFile storedFile;
+            try (InputStream in = file.getInputStream()) {
+                storedFile = certificateFileService.store(in, file.getOriginalFilename(), file.getSize());
+            }
+            
+            QualificationDTO qualificationDTO = new QualificationDTO();
+            qualificationDTO.setName(name);
+            qualificationDTO.setType(type);
+            qualificationDTO.setIssuer(issuer);
+            qualificationDTO.setDescription(description);
+            
+            QualificationDTO savedQualification = qualificationService.addQualification(userId, qualificationDTO, storedFile);
+            return ResponseEntity.ok(savedQualification);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * 创建分片上传会话
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> startUpload(@RequestBody UploadSessionDTO request) {
+        try {
+            Long userId = getCurrentUserId();
+            UploadSessionDTO session = certificateFileService.startUpload(
+                    userId, request.getFileName(), request.getFileSize(), request.getContentType());
+            return ResponseEntity.ok(session);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * 查询分片上传进度
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUpload(@PathVariable String uploadId) {
+        try {
+            Long userId = getCurrentUserId();
+            return ResponseEntity.ok(certificateFileService.getUpload(userId, uploadId));
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * 上传一个分片，请求体为原始文件内容，offset为该分片在文件中的起始位置
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            HttpServletRequest request) {
+        try {
+            Long userId = getCurrentUserId();
+            UploadSessionDTO session;
+            try (InputStream in = request.getInputStream()) {
+                session = certificateFileService.appendChunk(userId, uploadId, offset, in);
+            }
+            return ResponseEntity.ok(session);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    /**
+     * 取消分片上传，释放未完成上传的名额
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId) {
+        try {
+            Long userId = getCurrentUserId();
+            certificateFileService.cancelUpload(userId, uploadId);
+            
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "上传已取消");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
     /**
      * 删除资质证书
      */
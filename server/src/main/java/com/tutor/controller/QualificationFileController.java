@@ -0,0 +1,61 @@
+package com.tutor.controller;
+
+import com.tutor.entity.Qualification;
+import com.tutor.service.CertificateFileService;
+import com.tutor.service.QualificationService;
+import com.tutor.utils.FileTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/qualifications/files")
+public class QualificationFileController {
+
+    @Autowired
+    private QualificationService qualificationService;
+    
+    @Autowired
+    private CertificateFileService certificateFileService;
+
+    /**
+     * 通过签名链接下载资质证书文件
+     * 图片证书以inline返回，可直接用作<img>的地址；PDF作为附件下载。禁止浏览器猜测类型，
+     * 保存的类型不在允许范围内（历史数据）时按二进制附件返回
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Resource> downloadFile(
+            @PathVariable Long id,
+            @RequestParam long expires,
+            @RequestParam String signature) throws IOException {
+        Qualification qualification = qualificationService.getQualificationFile(id, expires, signature);
+        
+        MediaType mediaType = qualification.getContentType() != null
+                && FileTypes.DOCUMENT_TYPES.contains(qualification.getContentType())
+                ? MediaType.parseMediaType(qualification.getContentType())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        ContentDisposition.Builder builder = FileTypes.IMAGE_TYPES.contains(mediaType.toString())
+                ? ContentDisposition.inline() : ContentDisposition.attachment();
+        ContentDisposition disposition = builder
+                .filename(qualification.getFileName() != null ? qualification.getFileName() : "certificate", StandardCharsets.UTF_8)
+                .build();
+        
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .contentLength(qualification.getFileSize())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate())
+                .body(new InputStreamResource(certificateFileService.open(qualification.getFileHash())));
+    }
+}
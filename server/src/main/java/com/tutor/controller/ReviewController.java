@@ -3,8 +3,10 @@ package com.tutor.controller;
 import com.tutor.dto.ReviewCreateDTO;
 import com.tutor.dto.ReviewDTO;
 import com.tutor.service.ReviewService;
+import com.tutor.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -60,9 +62,21 @@ public class ReviewController {
     @GetMapping("/course/{courseId}")
     public ResponseEntity<?> getCourseReviews(
             @PathVariable Long courseId,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
+            // 传入cursor参数时使用游标分页
+            if (cursor != null) {
+                Slice<ReviewDTO> reviews = reviewService.getCourseReviewsAfter(courseId, cursor, size);
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("reviews", reviews.getContent());
+                response.put("nextCursor", PageCursor.next(reviews, PageCursor.Kind.REVIEWS, ReviewDTO::getCreatedAt, ReviewDTO::getId));
+                response.put("hasMore", reviews.hasNext());
+                
+                return ResponseEntity.ok(response);
+            }
             Page<ReviewDTO> reviews = reviewService.getCourseReviews(courseId, page, size);
             
             Map<String, Object> response = new HashMap<>();
@@ -2,9 +2,17 @@ package com.tutor.controller;
 
 import com.tutor.dto.TeacherDTO;
 import com.tutor.dto.TeacherQualificationsDTO;
+import com.tutor.dto.TeacherStatsDTO;
 import com.tutor.service.TeacherService;
+import com.tutor.service.TeacherStatsService;
+import com.tutor.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,18 +27,52 @@ public class TeacherController {
     @Autowired
     private TeacherService teacherService;
     
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+    
     /**
      * 获取所有教师列表
+     * 不传page和cursor时返回完整列表；传page时按页码分页，传cursor时按教师ID游标分页
      */
     @GetMapping
     public ResponseEntity<?> getAllTeachers(
             @RequestParam(required = false) String name,
-            @RequestParam(required = false) String subject,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) List<String> subject,
+            @RequestParam(defaultValue = "any") String match,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
         try {
+            // subject可重复或以逗号分隔传入多个科目，match=all时需同时教授所有科目
+            boolean matchAll = "all".equalsIgnoreCase(match);
+            if (cursor != null) {
+                Slice<TeacherDTO> teachers = teacherService.getTeacherDirectoryAfter(
+                        name, subject, matchAll, status, sort, cursor, size);
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("teachers", teachers.getContent());
+                response.put("nextCursor", PageCursor.next(teachers, PageCursor.Kind.TEACHERS, TeacherDTO::getId));
+                response.put("hasMore", teachers.hasNext());
+                return ResponseEntity.ok(response);
+            }
+            if (page != null) {
+                Page<TeacherDTO> teacherPage = teacherService.getTeacherDirectory(
+                        name, subject, matchAll, status, sort, direction, page, size);
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("teachers", teacherPage.getContent());
+                response.put("currentPage", teacherPage.getNumber());
+                response.put("totalItems", teacherPage.getTotalElements());
+                response.put("totalPages", teacherPage.getTotalPages());
+                return ResponseEntity.ok(response);
+            }
+            
             List<TeacherDTO> teachers;
             if (name != null || subject != null || status != null) {
-                teachers = teacherService.getTeachersByFilters(name, subject, status);
+                teachers = teacherService.getTeachersByFilters(name, subject, matchAll, status);
             } else {
                 teachers = teacherService.getAllTeachers();
             }
@@ -42,6 +84,24 @@ public class TeacherController {
         }
     }
     
+    /**
+     * 教师排行榜，直接读取教师统计表
+     */
+    @GetMapping("/ranking")
+    public ResponseEntity<?> getTeacherRanking(
+            @RequestParam(defaultValue = "rating") String sort,
+            @RequestParam(defaultValue = "1") int minReviews,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<TeacherStatsDTO> ranking = teacherStatsService.getRanking(sort, minReviews, limit);
+            return ResponseEntity.ok(ranking);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
     /**
      * 获取单个教师信息
      */
@@ -133,4 +193,29 @@ public class TeacherController {
             return ResponseEntity.badRequest().body(response);
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 获取教师的完整统计（仅管理员和教师本人可查看）
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<?> getTeacherStats(@PathVariable Long id) {
+        try {
+            TeacherStatsDTO stats = teacherStatsService.getStats(id);
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            boolean isAdmin = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+            boolean isSelf = authentication.getDetails() != null
+                    && stats.getUserId().toString().equals(authentication.getDetails().toString());
+            if (!isAdmin && !isSelf) {
+                Map<String, String> response = new HashMap<>();
+                response.put("error", "您没有权限查看该教师的统计数据");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            }
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
@@ -38,7 +38,7 @@ public class UserController {
             User user = userService.login(userDTO.getUsername(), userDTO.getPassword());
             
             // 生成JWT token
-            String token = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
+            String token = jwtUtil.generateToken(user.getUsername(), user.getId(), user.getRole().name());
             
             Map<String, Object> response = new HashMap<>();
             response.put("token", token);
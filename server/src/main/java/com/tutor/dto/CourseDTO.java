@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -20,6 +21,8 @@ public class CourseDTO {
     private String cover;
     private String status;
     private Double rating;
+    private Integer ratingCount;
+    private List<Integer> ratingDistribution; // 1-5星的评价数量
     private Integer studentCount;
     private Long teacherId;
     private String teacherName;
@@ -0,0 +1,17 @@
+package com.tutor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseDetailDTO {
+    private CourseDTO course;
+    private List<QualificationDTO> teacherQualifications; // 教师已通过审核的资质
+    private Map<String, String> teacherInfo; // 教师的学历和专业
+}
@@ -1,14 +1,18 @@
 package com.tutor.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 @Data
 @Getter
 @Setter
+@NoArgsConstructor
 public class QualificationDTO {
     private Long id;
     private Long userId;
@@ -16,10 +20,36 @@ public class QualificationDTO {
     private String type;
     private String issuer;
     private String description;
-    private String fileUrl;
+    private String fileUrl; // 文件下载链接
+    private String fileName;
+    private Long fileSize;
+    private String contentType;
+    private String uploadId; // 分片上传完成后提交的上传ID
     private String status;
     private String comment;
     private String uploadTime;
     private String reviewComment;
     private String reviewDate;
+    @JsonIgnore
+    private String fileHash; // 用于生成下载链接，不对外返回
+
+    /**
+     * 资质元数据的JPQL投影使用，不读取file_url字段
+     */
+    public QualificationDTO(Long id, Long userId, String name, String type, String issuer, String description,
+                            String fileHash, String fileName, Long fileSize, String contentType, String status,
+                            LocalDateTime uploadTime) {
+        this.id = id;
+        this.userId = userId;
+        this.name = name;
+        this.type = type;
+        this.issuer = issuer;
+        this.description = description;
+        this.fileHash = fileHash;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.contentType = contentType;
+        this.status = status;
+        this.uploadTime = uploadTime != null ? uploadTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) : null;
+    }
 } 
\ No newline at end of file
@@ -2,14 +2,17 @@ package com.tutor.dto;
 
 import lombok.Data;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 @Data
 @Getter
 @Setter
+@NoArgsConstructor
 public class TeacherDTO {
     private Long id;
     private Long userId;
@@ -20,5 +23,27 @@ public class TeacherDTO {
     private List<String> subjects;
     private Integer experience;
     private String status;
+    private Long courseCount; // 开设课程数
+    private Double rating; // 所有课程评价的平均分，没有评价时为null
     private Map<String, Object> qualifications; // 包含资质信息
-} 
\ No newline at end of file
+
+    /**
+     * 教师目录的JPQL投影使用，课程数和评分由查询聚合得到
+     * 科目不参与分组，由TeacherService按本页教师ID另行读取后填入
+     */
+    public TeacherDTO(Long id, Long userId, String name, String email, String phone, String education,
+                      Integer experience, String status,
+                      Long courseCount, Double ratingSum, Long ratingCount) {
+        this.id = id;
+        this.userId = userId;
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.education = education;
+        this.subjects = new ArrayList<>();
+        this.experience = experience;
+        this.status = status;
+        this.courseCount = courseCount;
+        this.rating = ratingCount != null && ratingCount > 0 && ratingSum != null ? ratingSum / ratingCount : null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tutor.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+public class TeacherStatsDTO {
+    private Long teacherId;
+    private Long userId;
+    private String name;
+    private Double rating; // 所有课程评价的平均分，没有评价时为null
+    private Integer ratingCount;
+    private Integer completedOrders;
+    private Integer cancelledOrders;
+    private Double cancellationRate; // 取消订单占已结束订单（完成+取消）的比例
+    private Double revenue;
+    private LocalDateTime updatedAt;
+
+    /**
+     * 排行榜和统计查询的JPQL投影使用
+     */
+    public TeacherStatsDTO(Long teacherId, Long userId, String name, Double rating, Integer ratingCount,
+                           Integer completedOrders, Integer cancelledOrders, Double revenue, LocalDateTime updatedAt) {
+        this.teacherId = teacherId;
+        this.userId = userId;
+        this.name = name;
+        this.rating = rating;
+        this.ratingCount = ratingCount;
+        this.completedOrders = completedOrders;
+        this.cancelledOrders = cancelledOrders;
+        int finished = completedOrders + cancelledOrders;
+        this.cancellationRate = finished > 0 ? (double) cancelledOrders / finished : null;
+        this.revenue = revenue;
+        this.updatedAt = updatedAt;
+    }
+}
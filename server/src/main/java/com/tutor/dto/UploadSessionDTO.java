@@ -0,0 +1,23 @@
+package com.tutor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分片上传会话，客户端根据received从断点继续上传
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String uploadId;
+    private String fileName;
+    private String contentType;
+    private Long fileSize;    // 文件总大小
+    private Long received;    // 已接收的字节数
+    private Long chunkSize;   // 建议的分片大小
+    private Long maxSize;     // 允许的最大文件大小
+}
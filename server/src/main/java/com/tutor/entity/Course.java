@@ -4,16 +4,23 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "courses")
+@Table(name = "courses", indexes = {
+        @Index(name = "idx_courses_created", columnList = "createdAt, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "courses")
 public class Course {
     
     @Id
@@ -35,12 +42,35 @@ public class Course {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String description;
     
-    @Column(nullable = false, columnDefinition = "LONGTEXT")
-    private String cover;
+    @Column(nullable = false, length = 64)
+    private String cover; // 封面图片的SHA-256哈希，图片内容保存在媒体存储中
     
     @Column(nullable = false)
     private Double rating;
     
+    // 评分聚合，随评价的增删改原子更新，避免每次重新计算AVG
+    @Column(nullable = false)
+    private Double ratingSum; // 评分总和
+    
+    @Column(nullable = false)
+    private Integer ratingCount; // 评价数量
+    
+    // 1-5星分布，半分按四舍五入归入相应星级
+    @Column(nullable = false)
+    private Integer ratingStar1;
+    
+    @Column(nullable = false)
+    private Integer ratingStar2;
+    
+    @Column(nullable = false)
+    private Integer ratingStar3;
+    
+    @Column(nullable = false)
+    private Integer ratingStar4;
+    
+    @Column(nullable = false)
+    private Integer ratingStar5;
+    
     @Column(nullable = false)
     private Integer studentCount;
     
@@ -59,6 +89,13 @@ public class Course {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
         if (rating == null) rating = 5.0;
+        if (ratingSum == null) ratingSum = 0.0;
+        if (ratingCount == null) ratingCount = 0;
+        if (ratingStar1 == null) ratingStar1 = 0;
+        if (ratingStar2 == null) ratingStar2 = 0;
+        if (ratingStar3 == null) ratingStar3 = 0;
+        if (ratingStar4 == null) ratingStar4 = 0;
+        if (ratingStar5 == null) ratingStar5 = 0;
         if (studentCount == null) studentCount = 0;
     }
     
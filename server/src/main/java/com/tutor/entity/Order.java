@@ -9,7 +9,15 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_student_created", columnList = "student_id, createdAt, id"),
+        @Index(name = "idx_orders_course_created", columnList = "course_id, createdAt, id"),
+        @Index(name = "idx_orders_student_course_status", columnList = "student_id, course_id, status"),
+        @Index(name = "idx_orders_status_created", columnList = "status, createdAt, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_orders_active", columnNames = "activeKey"),
+        @UniqueConstraint(name = "uk_orders_idempotency", columnNames = {"student_id", "idempotencyKey"})
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -48,23 +56,41 @@ public class Order {
     @Column(columnDefinition = "TEXT")
     private String remark; // 备注
     
+    // 待支付或已支付时为"学生ID:课程ID"，其他状态为null，由唯一约束保证同一学生同一课程只有一个有效订单
+    // 批量修改订单状态的语句需要同步清空此列
+    @Column(length = 64)
+    private String activeKey;
+    
+    @Column(length = 64)
+    private String idempotencyKey; // 客户端提交的幂等键
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
     @Column(nullable = false)
     private LocalDateTime updatedAt;
     
+    @Version
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
         if (status == null) {
-            status = "pending";
+            status = OrderStatus.PENDING.getValue();
         }
+        updateActiveKey();
     }
     
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        updateActiveKey();
+    }
+    
+    private void updateActiveKey() {
+        activeKey = OrderStatus.of(status).isActive() ? student.getId() + ":" + course.getId() : null;
     }
 } 
\ No newline at end of file
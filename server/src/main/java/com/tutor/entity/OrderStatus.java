@@ -0,0 +1,66 @@
+package com.tutor.entity;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态及允许的状态转换，数据库和接口中使用小写的状态值
+ * pending -> paid / cancelled，paid -> completed / cancelled，completed和cancelled为终态
+ */
+public enum OrderStatus {
+    PENDING("pending"),     // 待支付
+    PAID("paid"),           // 已支付
+    COMPLETED("completed"), // 已完成
+    CANCELLED("cancelled"); // 已取消
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(PAID, CANCELLED));
+        TRANSITIONS.put(PAID, EnumSet.of(COMPLETED, CANCELLED));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    private final String value;
+
+    OrderStatus(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * 返回转换的目标状态，转换不在上表中时抛出IllegalStateException，条件更新的目标状态都经过这里取得
+     */
+    public OrderStatus transitionTo(OrderStatus target) {
+        if (!canTransitionTo(target)) {
+            throw new IllegalStateException("订单状态不能从" + value + "转换为" + target.value);
+        }
+        return target;
+    }
+
+    /**
+     * 待支付和已支付的订单占用activeKey，同一学生同一课程只能有一个
+     */
+    public boolean isActive() {
+        return this == PENDING || this == PAID;
+    }
+
+    public static OrderStatus of(String value) {
+        for (OrderStatus status : values()) {
+            if (status.value.equals(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("未知的订单状态: " + value);
+    }
+}
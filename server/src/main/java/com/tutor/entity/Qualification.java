@@ -36,7 +36,16 @@ public class Qualification {
     private String description; // 备注说明
 
     @Column(columnDefinition = "LONGTEXT")
-    private String fileUrl; // 文件URL或Base64内容
+    private String fileUrl; // 历史数据：文件URL或Base64内容，新上传的文件不再使用此字段
+
+    @Column(length = 64)
+    private String fileHash; // 证书文件内容的SHA-256哈希，文件保存在证书存储中
+
+    private String fileName; // 原始文件名
+
+    private Long fileSize; // 文件大小(字节)
+
+    private String contentType; // 文件类型
     
     @Column(nullable = false)
     private String status = "pending"; // 状态: pending, approved, rejected
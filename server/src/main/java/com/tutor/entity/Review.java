@@ -9,7 +9,9 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_course_created", columnList = "course_id, createdAt, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,28 @@
+package com.tutor.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务租约，每个任务一行
+ * 通过条件更新获取和续期，不经过实体保存
+ */
+@Entity
+@Table(name = "scheduler_locks")
+@Data
+@NoArgsConstructor
+public class SchedulerLock {
+    
+    @Id
+    @Column(length = 64)
+    private String name; // 任务名
+    
+    @Column(length = 128)
+    private String owner; // 持有租约的实例
+    
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil; // 租约到期时间
+}
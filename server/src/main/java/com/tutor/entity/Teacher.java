@@ -3,6 +3,8 @@ package com.tutor.entity;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -12,6 +14,7 @@ import java.time.LocalDateTime;
 @Setter
 @Entity
 @Table(name = "teachers")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teachers")
 public class Teacher {
 
     @Id
@@ -30,7 +33,7 @@ public class Teacher {
     private String subjects; // 教学科目，以逗号分隔
 
     @Column(nullable = false)
-    private String status = "active"; // 状态: active, inactive
+    private String status = TeacherStatus.ACTIVE.getValue(); // 状态: active, inactive
     
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
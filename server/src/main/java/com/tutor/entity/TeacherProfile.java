@@ -3,6 +3,8 @@ package com.tutor.entity;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -12,6 +14,7 @@ import java.time.LocalDateTime;
 @Setter
 @Entity
 @Table(name = "teacher_profiles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teacherProfiles")
 public class TeacherProfile {
 
     @Id
@@ -0,0 +1,45 @@
+package com.tutor.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 教师统计，按教师的用户ID保存评分和订单汇总
+ * 由订单完成、取消和评价写入时通过原生SQL增量更新，不经过实体保存
+ */
+@Entity
+@Table(name = "teacher_stats", indexes = {
+        @Index(name = "idx_teacher_stats_rating", columnList = "rating, ratingCount"),
+        @Index(name = "idx_teacher_stats_completed", columnList = "completedOrders")
+})
+@Data
+@NoArgsConstructor
+public class TeacherStats {
+    
+    @Id
+    @Column(name = "teacher_id")
+    private Long teacherId; // 教师的用户ID
+    
+    private Double rating; // 平均评分，没有评价时为null
+    
+    @Column(nullable = false)
+    private Double ratingSum;
+    
+    @Column(nullable = false)
+    private Integer ratingCount;
+    
+    @Column(nullable = false)
+    private Integer completedOrders;
+    
+    @Column(nullable = false)
+    private Integer cancelledOrders;
+    
+    @Column(nullable = false)
+    private Double revenue; // 已完成订单的金额总和
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
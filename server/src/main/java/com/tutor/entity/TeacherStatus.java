@@ -0,0 +1,19 @@
+package com.tutor.entity;
+
+/**
+ * 教师状态，数据库和接口中使用小写的状态值
+ */
+public enum TeacherStatus {
+    ACTIVE("active"),     // 在职
+    INACTIVE("inactive"); // 离职
+
+    private final String value;
+
+    TeacherStatus(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
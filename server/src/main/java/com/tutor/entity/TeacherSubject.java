@@ -0,0 +1,36 @@
+package com.tutor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 教师与教学科目的对应关系，用于按科目检索教师
+ * 教师表中逗号分隔的subjects字段仍用于展示
+ */
+@Entity
+@Table(name = "teacher_subjects", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_teacher_subjects", columnNames = {"teacher_id", "subject"})
+}, indexes = {
+        @Index(name = "idx_teacher_subjects_subject", columnList = "subject, teacher_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeacherSubject {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id", nullable = false)
+    private Teacher teacher;
+    
+    @Column(nullable = false, length = 50)
+    private String subject;
+}
@@ -5,11 +5,18 @@ import com.tutor.entity.Teacher;
 import com.tutor.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,13 +24,29 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     
     Page<Course> findByTeacher(User teacher, Pageable pageable);
     
+    // 结果进入查询缓存，courses表有任何写入时整体失效
     @Query("SELECT c FROM Course c WHERE " +
            "(:category IS NULL OR c.category = :category) AND " +
            "(:keyword IS NULL OR c.title LIKE %:keyword% OR c.description LIKE %:keyword%)")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Page<Course> findByFilters(@Param("category") String category, 
                               @Param("keyword") String keyword, 
                               Pageable pageable);
     
+    // 课程详情：课程、授课教师及其教师档案一次取回，教师没有档案时第二个元素为null
+    @Query("SELECT c, t FROM Course c JOIN FETCH c.teacher u LEFT JOIN Teacher t ON t.user = u WHERE c.id = :id")
+    List<Object[]> findDetailById(@Param("id") Long id);
+    
+    // 游标分页浏览课程，从(createdAt, id)之后继续，不执行COUNT查询
+    @EntityGraph(attributePaths = "teacher")
+    @Query("SELECT c FROM Course c WHERE " +
+           "(:category IS NULL OR c.category = :category) AND " +
+           "(:createdAt IS NULL OR c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))")
+    Slice<Course> findByFiltersAfter(@Param("category") String category,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+    
     @Query("SELECT c FROM Course c WHERE c.teacher = :teacher AND " +
            "(:category IS NULL OR c.category = :category) AND " +
            "(:keyword IS NULL OR c.title LIKE %:keyword% OR c.description LIKE %:keyword%)")
@@ -32,6 +55,77 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
                                         @Param("keyword") String keyword, 
                                         Pageable pageable);
                                         
+    // 按ID分批读取课程，用于重建搜索索引
+    @EntityGraph(attributePaths = "teacher")
+    List<Course> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "teacher")
+    List<Course> findByIdIn(Collection<Long> ids);
+    
     @Query("SELECT COUNT(c) FROM Course c WHERE c.teacher.id IN (SELECT t.user.id FROM Teacher t WHERE t = :teacher)")
     int countByTeacher(@Param("teacher") Teacher teacher);
-} 
\ No newline at end of file
+    
+    @Query("SELECT c.id FROM Course c WHERE c.teacher = :teacher")
+    List<Long> findIdsByTeacher(@Param("teacher") User teacher);
+    
+    // 原子更新课程评分聚合，rating放在最前面，按更新前的值加上增量计算
+    // 原生更新语句需声明影响的表，否则Hibernate会清空全部二级缓存区域
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "courses"))
+    @Query(value = "UPDATE courses SET " +
+           "rating = CASE WHEN rating_count + :countDelta > 0 " +
+           "THEN (rating_sum + :sumDelta) / (rating_count + :countDelta) ELSE 5.0 END, " +
+           "rating_sum = rating_sum + :sumDelta, " +
+           "rating_count = rating_count + :countDelta, " +
+           "rating_star1 = rating_star1 + :star1, " +
+           "rating_star2 = rating_star2 + :star2, " +
+           "rating_star3 = rating_star3 + :star3, " +
+           "rating_star4 = rating_star4 + :star4, " +
+           "rating_star5 = rating_star5 + :star5 " +
+           "WHERE id = :courseId", nativeQuery = true)
+    int applyRatingDelta(@Param("courseId") Long courseId,
+                         @Param("sumDelta") double sumDelta,
+                         @Param("countDelta") int countDelta,
+                         @Param("star1") int star1,
+                         @Param("star2") int star2,
+                         @Param("star3") int star3,
+                         @Param("star4") int star4,
+                         @Param("star5") int star5);
+    
+    // 根据评价表全量重建评分聚合，只在没有评价写入时使用
+    String REBUILD_RATING_SQL = "UPDATE courses c SET " +
+           "rating_count = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id), " +
+           "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM reviews r WHERE r.course_id = c.id), " +
+           "rating_star1 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating < 1.5), " +
+           "rating_star2 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 1.5 AND r.rating < 2.5), " +
+           "rating_star3 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 2.5 AND r.rating < 3.5), " +
+           "rating_star4 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 3.5 AND r.rating < 4.5), " +
+           "rating_star5 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 4.5)";
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "courses"))
+    @Query(value = REBUILD_RATING_SQL, nativeQuery = true)
+    int rebuildAllRatingAggregates();
+    
+    // 根据聚合列刷新平均评分
+    String REFRESH_RATING_SQL = "UPDATE courses SET rating = " +
+           "CASE WHEN rating_count > 0 THEN rating_sum / rating_count ELSE 5.0 END";
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "courses"))
+    @Query(value = REFRESH_RATING_SQL, nativeQuery = true)
+    int refreshAllAverageRatings();
+    
+    // 查询封面仍以Base64内联保存的历史课程，历史封面在未映射到实体的cover_data列中
+    // 原生查询的ID类型随驱动不同（BigInteger或Long），以Number返回
+    @Query(value = "SELECT id FROM courses WHERE cover_data IS NOT NULL", nativeQuery = true)
+    List<Number> findIdsWithInlineCover();
+    
+    @Query(value = "SELECT cover_data FROM courses WHERE id = :id", nativeQuery = true)
+    String findCoverById(@Param("id") Long id);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "courses"))
+    @Query(value = "UPDATE courses SET cover = :cover, cover_data = NULL WHERE id = :id", nativeQuery = true)
+    int updateCover(@Param("id") Long id, @Param("cover") String cover);
+}
\ No newline at end of file
@@ -5,25 +5,35 @@ import com.tutor.entity.Order;
 import com.tutor.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
     // 查询学生的所有订单
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
     Page<Order> findByStudent(User student, Pageable pageable);
     
     // 查询学生的特定状态订单
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
     Page<Order> findByStudentAndStatus(User student, String status, Pageable pageable);
     
     // 查询教师的所有课程订单
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
     @Query("SELECT o FROM Order o WHERE o.course.teacher = :teacher")
     Page<Order> findByTeacher(@Param("teacher") User teacher, Pageable pageable);
     
     // 查询教师的特定状态课程订单
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
     @Query("SELECT o FROM Order o WHERE o.course.teacher = :teacher AND o.status = :status")
     Page<Order> findByTeacherAndStatus(@Param("teacher") User teacher, @Param("status") String status, Pageable pageable);
     
@@ -31,20 +41,109 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Page<Order> findByCourse(Course course, Pageable pageable);
     
     // 关键字搜索学生订单 (课程名称或教师名)
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
     @Query("SELECT o FROM Order o WHERE o.student = :student AND (LOWER(o.course.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(o.course.teacher.realName) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     Page<Order> searchStudentOrders(@Param("student") User student, @Param("keyword") String keyword, Pageable pageable);
     
     // 关键字搜索教师订单 (课程名称或学生名)
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
     @Query("SELECT o FROM Order o WHERE o.course.teacher = :teacher AND (LOWER(o.course.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(o.student.realName) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     Page<Order> searchTeacherOrders(@Param("teacher") User teacher, @Param("keyword") String keyword, Pageable pageable);
     
+    // 游标分页查询学生订单，从(createdAt, id)之后继续，不执行COUNT查询
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
+    @Query("SELECT o FROM Order o WHERE o.student = :student AND " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:keyword IS NULL OR LOWER(o.course.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(o.course.teacher.realName) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+           "(:createdAt IS NULL OR o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id))")
+    Slice<Order> findStudentOrdersAfter(@Param("student") User student,
+                                        @Param("status") String status,
+                                        @Param("keyword") String keyword,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+    
+    // 游标分页查询教师订单
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
+    @Query("SELECT o FROM Order o WHERE o.course.teacher = :teacher AND " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:keyword IS NULL OR LOWER(o.course.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(o.student.realName) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+           "(:createdAt IS NULL OR o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id))")
+    Slice<Order> findTeacherOrdersAfter(@Param("teacher") User teacher,
+                                        @Param("status") String status,
+                                        @Param("keyword") String keyword,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+    
+    // 按幂等键查询学生已提交的订单
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
+    Optional<Order> findByStudentIdAndIdempotencyKey(Long studentId, String idempotencyKey);
+    
     // 检查订单是否存在
     boolean existsByStudentAndCourseAndStatusNot(User student, Course course, String status);
     
     // 检查是否存在待支付或已支付的订单
-    @Query("SELECT COUNT(o) > 0 FROM Order o WHERE o.student = :student AND o.course = :course AND o.status IN ('pending', 'paid')")
-    boolean existsActiveOrderByStudentAndCourse(@Param("student") User student, @Param("course") Course course);
+    @Query("SELECT COUNT(o) > 0 FROM Order o WHERE o.student = :student AND o.course = :course AND o.status IN :statuses")
+    boolean existsActiveOrderByStudentAndCourse(@Param("student") User student, @Param("course") Course course,
+                                                @Param("statuses") Collection<String> statuses);
     
     // 统计课程的相关订单数量
     int countByCourse(Course course);
+    
+    // 以下为条件状态转换：一条UPDATE同时校验当前状态和订单归属，返回1表示本次转换生效，
+    // 返回0表示订单不存在、不属于该用户或状态已被并发请求改变
+    
+    // 学生支付：from -> to，记录支付时间
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.paymentTime = :now, o.updatedAt = :now, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND o.student.id = :studentId AND o.status = :from")
+    int payByStudent(@Param("id") Long id, @Param("studentId") Long studentId,
+                     @Param("from") String from, @Param("to") String to, @Param("now") LocalDateTime now);
+    
+    // 教师完成订单，终态释放activeKey
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.activeKey = NULL, o.completionTime = :now, o.updatedAt = :now, " +
+           "o.version = o.version + 1 WHERE o.id = :id AND o.status = :from AND " +
+           "o.course.id IN (SELECT c.id FROM Course c WHERE c.teacher.id = :teacherId)")
+    int completeByTeacher(@Param("id") Long id, @Param("teacherId") Long teacherId,
+                          @Param("from") String from, @Param("to") String to, @Param("now") LocalDateTime now);
+    
+    // 学生取消订单
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.activeKey = NULL, o.cancellationTime = :now, " +
+           "o.cancellationReason = :reason, o.updatedAt = :now, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND o.student.id = :studentId AND o.status = :from")
+    int cancelByStudent(@Param("id") Long id, @Param("studentId") Long studentId,
+                        @Param("from") String from, @Param("to") String to,
+                        @Param("now") LocalDateTime now, @Param("reason") String reason);
+    
+    // 教师取消订单
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.activeKey = NULL, o.cancellationTime = :now, " +
+           "o.cancellationReason = :reason, o.updatedAt = :now, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND o.status = :from AND " +
+           "o.course.id IN (SELECT c.id FROM Course c WHERE c.teacher.id = :teacherId)")
+    int cancelByTeacher(@Param("id") Long id, @Param("teacherId") Long teacherId,
+                        @Param("from") String from, @Param("to") String to,
+                        @Param("now") LocalDateTime now, @Param("reason") String reason);
+    
+    // 创建时间早于cutoff的待支付订单ID，按(status, createdAt)索引顺序扫描
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.createdAt < :cutoff ORDER BY o.createdAt, o.id")
+    List<Long> findExpiredPendingIds(@Param("status") String status, @Param("cutoff") LocalDateTime cutoff,
+                                     Pageable pageable);
+    
+    // 批量取消仍为待支付的订单，同时清空activeKey，允许学生重新下单
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.activeKey = NULL, o.cancellationTime = :now, " +
+           "o.cancellationReason = :reason, o.updatedAt = :now, o.version = o.version + 1 " +
+           "WHERE o.id IN :ids AND o.status = :from")
+    int cancelPending(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to,
+                      @Param("now") LocalDateTime now, @Param("reason") String reason);
+    
+    // 本批中以指定原因取消的订单按教师（用户ID）计数
+    @Query("SELECT o.course.teacher.id, COUNT(o) FROM Order o WHERE o.id IN :ids AND o.status = :status " +
+           "AND o.cancellationReason = :reason GROUP BY o.course.teacher.id")
+    List<Object[]> countCancelledByTeacher(@Param("ids") Collection<Long> ids, @Param("status") String status,
+                                           @Param("reason") String reason);
 } 
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.tutor.repository;
 
+import com.tutor.dto.QualificationDTO;
 import com.tutor.entity.Qualification;
 import com.tutor.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,9 +15,35 @@ public interface QualificationRepository extends JpaRepository<Qualification, Lo
     List<Qualification> findByUser(User user);
     List<Qualification> findByUserOrderByUploadTimeDesc(User user);
     List<Qualification> findByUserAndStatusOrderByUploadTimeDesc(User user, String status);
+    
+    // 用户已通过审核的资质元数据，不读取file_url字段
+    @Query("SELECT new com.tutor.dto.QualificationDTO(q.id, q.user.id, q.name, q.type, q.issuer, q.description, " +
+           "q.fileHash, q.fileName, q.fileSize, q.contentType, q.status, q.uploadTime) " +
+           "FROM Qualification q WHERE q.user.id = :userId AND UPPER(q.status) = 'APPROVED' " +
+           "ORDER BY q.uploadTime DESC")
+    List<QualificationDTO> findApprovedSummaries(@Param("userId") Long userId);
+    
+    @EntityGraph(attributePaths = "user")
     List<Qualification> findByStatus(String status);
+    
+    @EntityGraph(attributePaths = "user")
     List<Qualification> findByStatusNot(String status);
     
+    // 查询文件仍以Base64内联保存的历史资质
+    @Query("SELECT q.id FROM Qualification q WHERE q.fileHash IS NULL AND q.fileUrl LIKE 'data:%'")
+    List<Long> findIdsWithInlineFile();
+    
+    boolean existsByFileHash(String fileHash);
+    
+    @Query("SELECT q.fileUrl FROM Qualification q WHERE q.id = :id")
+    String findFileUrlById(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE Qualification q SET q.fileHash = :fileHash, q.fileSize = :fileSize, " +
+           "q.contentType = :contentType, q.fileUrl = NULL WHERE q.id = :id")
+    int updateStoredFile(@Param("id") Long id, @Param("fileHash") String fileHash,
+                         @Param("fileSize") Long fileSize, @Param("contentType") String contentType);
+    
     @Modifying
     @Query("DELETE FROM Qualification q WHERE q.user = :user")
     void deleteByUser(@Param("user") User user);
@@ -6,10 +6,14 @@ import com.tutor.entity.Review;
 import com.tutor.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +22,15 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     // 查询课程的所有评价
     Page<Review> findByCourse(Course course, Pageable pageable);
     
+    // 游标分页查询课程评价，从(createdAt, id)之后继续，不执行COUNT查询
+    @EntityGraph(attributePaths = {"course", "course.teacher", "student"})
+    @Query("SELECT r FROM Review r WHERE r.course = :course AND " +
+           "(:createdAt IS NULL OR r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id))")
+    Slice<Review> findByCourseAfter(@Param("course") Course course,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+    
     // 查询学生的所有评价
     Page<Review> findByStudent(User student, Pageable pageable);
     
@@ -25,13 +38,14 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT r FROM Review r WHERE r.course.teacher = :teacher")
     Page<Review> findByTeacher(@Param("teacher") User teacher, Pageable pageable);
     
-    // 计算课程的平均评分
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.course = :course")
-    Double calculateAverageRating(@Param("course") Course course);
-    
     // 根据订单查找评价
     Optional<Review> findByOrder(Order order);
     
+    // 批量查询一页订单的评价，课程、教师和学生在同一条SQL中取回
+    @Query("SELECT r FROM Review r JOIN FETCH r.course c JOIN FETCH c.teacher JOIN FETCH r.student " +
+           "WHERE r.order.id IN :orderIds")
+    List<Review> findByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
     // 检查订单是否已经评价
     boolean existsByOrder(Order order);
     
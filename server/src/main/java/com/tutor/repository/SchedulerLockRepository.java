@@ -0,0 +1,32 @@
+package com.tutor.repository;
+
+import com.tutor.entity.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+    
+    // 任务还没有租约行时插入一行已过期的租约，已存在时不做修改
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "scheduler_locks"))
+    @Query(value = "INSERT INTO scheduler_locks (name, owner, locked_until) VALUES (:name, NULL, :now) " +
+           "ON DUPLICATE KEY UPDATE name = name", nativeQuery = true)
+    int ensureRow(@Param("name") String name, @Param("now") LocalDateTime now);
+    
+    // 租约已过期或本来就由owner持有时获取（续期）租约，返回1表示成功
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.owner = :owner, l.lockedUntil = :until " +
+           "WHERE l.name = :name AND (l.lockedUntil < :now OR l.owner = :owner)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+    
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -1,19 +1,86 @@
 package com.tutor.repository;
 
+import com.tutor.dto.TeacherDTO;
 import com.tutor.entity.Teacher;
 import com.tutor.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface TeacherRepository extends JpaRepository<Teacher, Long> {
+    
+    // 教师目录投影：一次查询取出教师、用户信息以及课程数和评分聚合，排序表达式可引用c的聚合
+    String DIRECTORY_SELECT = "SELECT new com.tutor.dto.TeacherDTO(t.id, u.id, u.realName, u.email, u.phone, " +
+            "t.education, t.experience, t.status, " +
+            "COUNT(c.id), SUM(c.ratingSum), SUM(c.ratingCount)) " +
+            "FROM Teacher t JOIN t.user u LEFT JOIN Course c ON c.teacher = u ";
+    
+    String DIRECTORY_COUNT = "SELECT COUNT(t) FROM Teacher t JOIN t.user u ";
+    
+    String DIRECTORY_FILTER = "WHERE (:name IS NULL OR u.realName LIKE %:name%) AND " +
+            "(:status IS NULL OR t.status = :status) ";
+    
+    String DIRECTORY_SUBJECT_FILTER = "AND t.id IN (SELECT s.teacher.id FROM TeacherSubject s " +
+            "WHERE s.subject IN :subjects GROUP BY s.teacher.id HAVING COUNT(s) >= :minMatches) ";
+    
+    String DIRECTORY_AFTER = "AND (:afterId IS NULL OR t.id > :afterId) ";
+    
+    // TEXT类型的subjects不放进分组，由findSubjectsByIds另行读取
+    String DIRECTORY_GROUP = "GROUP BY t.id, u.id, u.realName, u.email, u.phone, " +
+            "t.education, t.experience, t.status";
+    
     Optional<Teacher> findByUser(User user);
     
-    @Query("SELECT t FROM Teacher t JOIN t.user u WHERE " +
+    @Query("SELECT t FROM Teacher t JOIN FETCH t.user u WHERE " +
            "(:name IS NULL OR u.realName LIKE %:name%) AND " +
-           "(:subject IS NULL OR t.subjects LIKE %:subject%) AND " +
            "(:status IS NULL OR t.status = :status)")
-    List<Teacher> findByFilters(String name, String subject, String status);
-} 
\ No newline at end of file
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Teacher> findByFilters(@Param("name") String name, @Param("status") String status);
+    
+    // 科目字段不为空但尚未建立科目索引的教师
+    @Query("SELECT t FROM Teacher t WHERE t.subjects IS NOT NULL AND t.subjects <> '' AND " +
+           "NOT EXISTS (SELECT s FROM TeacherSubject s WHERE s.teacher = t)")
+    List<Teacher> findTeachersWithoutSubjects();
+    
+    @Query(value = DIRECTORY_SELECT + DIRECTORY_FILTER + DIRECTORY_GROUP,
+           countQuery = DIRECTORY_COUNT + DIRECTORY_FILTER)
+    Page<TeacherDTO> findDirectory(@Param("name") String name,
+                                   @Param("status") String status,
+                                   Pageable pageable);
+    
+    @Query(value = DIRECTORY_SELECT + DIRECTORY_FILTER + DIRECTORY_SUBJECT_FILTER + DIRECTORY_GROUP,
+           countQuery = DIRECTORY_COUNT + DIRECTORY_FILTER + DIRECTORY_SUBJECT_FILTER)
+    Page<TeacherDTO> findDirectoryBySubjects(@Param("name") String name,
+                                             @Param("status") String status,
+                                             @Param("subjects") Collection<String> subjects,
+                                             @Param("minMatches") long minMatches,
+                                             Pageable pageable);
+    
+    // 教师目录一页的科目字段，返回(教师ID, 逗号分隔的科目)
+    @Query("SELECT t.id, t.subjects FROM Teacher t WHERE t.id IN :ids")
+    List<Object[]> findSubjectsByIds(@Param("ids") Collection<Long> ids);
+    
+    // 游标分页：按教师ID递增，从afterId之后继续查询，不执行COUNT
+    @Query(DIRECTORY_SELECT + DIRECTORY_FILTER + DIRECTORY_AFTER + DIRECTORY_GROUP)
+    Slice<TeacherDTO> findDirectoryAfter(@Param("name") String name,
+                                         @Param("status") String status,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+    
+    @Query(DIRECTORY_SELECT + DIRECTORY_FILTER + DIRECTORY_SUBJECT_FILTER + DIRECTORY_AFTER + DIRECTORY_GROUP)
+    Slice<TeacherDTO> findDirectoryBySubjectsAfter(@Param("name") String name,
+                                                   @Param("status") String status,
+                                                   @Param("subjects") Collection<String> subjects,
+                                                   @Param("minMatches") long minMatches,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+}
@@ -0,0 +1,97 @@
+package com.tutor.repository;
+
+import com.tutor.dto.TeacherStatsDTO;
+import com.tutor.entity.TeacherStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TeacherStatsRepository extends JpaRepository<TeacherStats, Long> {
+    
+    String STATS_SELECT = "SELECT new com.tutor.dto.TeacherStatsDTO(t.id, u.id, u.realName, s.rating, s.ratingCount, " +
+           "s.completedOrders, s.cancelledOrders, s.revenue, s.updatedAt) " +
+           "FROM TeacherStats s, Teacher t JOIN t.user u WHERE u.id = s.teacherId ";
+    
+    // 排行榜只读统计表，排序字段由Pageable指定
+    @Query(STATS_SELECT + "AND t.status = :status AND s.ratingCount >= :minReviews")
+    List<TeacherStatsDTO> findRanking(@Param("status") String status, @Param("minReviews") int minReviews,
+                                      Pageable pageable);
+    
+    @Query(STATS_SELECT + "AND t.id = :teacherId")
+    Optional<TeacherStatsDTO> findByTeacher(@Param("teacherId") Long teacherId);
+    
+    // 统计表不在二级缓存中，原生语句声明只影响teacher_stats，避免清空实体缓存
+    // 教师还没有统计行时插入全零的一行，已存在时不做修改
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "teacher_stats"))
+    @Query(value = "INSERT INTO teacher_stats (teacher_id, rating, rating_sum, rating_count, " +
+           "completed_orders, cancelled_orders, revenue, updated_at) " +
+           "VALUES (:teacherId, NULL, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP) " +
+           "ON DUPLICATE KEY UPDATE teacher_id = teacher_id", nativeQuery = true)
+    int ensureRow(@Param("teacherId") Long teacherId);
+    
+    // 原子地累加增量，平均分放在最前面，按更新前的值计算
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "teacher_stats"))
+    @Query(value = "UPDATE teacher_stats SET " +
+           "rating = CASE WHEN rating_count + :countDelta > 0 " +
+           "THEN (rating_sum + :sumDelta) / (rating_count + :countDelta) ELSE NULL END, " +
+           "rating_sum = rating_sum + :sumDelta, " +
+           "rating_count = rating_count + :countDelta, " +
+           "completed_orders = completed_orders + :completedDelta, " +
+           "cancelled_orders = cancelled_orders + :cancelledDelta, " +
+           "revenue = revenue + :revenueDelta, " +
+           "updated_at = CURRENT_TIMESTAMP " +
+           "WHERE teacher_id = :teacherId", nativeQuery = true)
+    int applyDelta(@Param("teacherId") Long teacherId,
+                   @Param("sumDelta") double sumDelta,
+                   @Param("countDelta") int countDelta,
+                   @Param("completedDelta") int completedDelta,
+                   @Param("cancelledDelta") int cancelledDelta,
+                   @Param("revenueDelta") double revenueDelta);
+    
+    // 删除教师时一并删除统计行，teacherId为教师的用户ID
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "teacher_stats"))
+    @Query(value = "DELETE FROM teacher_stats WHERE teacher_id = :teacherId", nativeQuery = true)
+    int deleteByTeacherId(@Param("teacherId") Long teacherId);
+    
+    // 以下两条为全量重建，只在没有订单和评价写入时使用（压测数据生成后）
+    // 为还没有统计行的教师补齐
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "teacher_stats"))
+    @Query(value = "INSERT INTO teacher_stats (teacher_id, rating, rating_sum, rating_count, " +
+           "completed_orders, cancelled_orders, revenue, updated_at) " +
+           "SELECT u.id, NULL, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP FROM users u " +
+           "WHERE u.role = :role AND NOT EXISTS (SELECT 1 FROM teacher_stats s WHERE s.teacher_id = u.id)",
+           nativeQuery = true)
+    int insertMissingRows(@Param("role") String role);
+    
+    // 根据订单和评价明细重建全部统计
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "teacher_stats"))
+    @Query(value = "UPDATE teacher_stats s SET " +
+           "rating = (SELECT AVG(r.rating) FROM reviews r JOIN courses c ON r.course_id = c.id " +
+           "WHERE c.teacher_id = s.teacher_id), " +
+           "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM reviews r JOIN courses c ON r.course_id = c.id " +
+           "WHERE c.teacher_id = s.teacher_id), " +
+           "rating_count = (SELECT COUNT(*) FROM reviews r JOIN courses c ON r.course_id = c.id " +
+           "WHERE c.teacher_id = s.teacher_id), " +
+           "completed_orders = (SELECT COUNT(*) FROM orders o JOIN courses c ON o.course_id = c.id " +
+           "WHERE c.teacher_id = s.teacher_id AND o.status = :completed), " +
+           "cancelled_orders = (SELECT COUNT(*) FROM orders o JOIN courses c ON o.course_id = c.id " +
+           "WHERE c.teacher_id = s.teacher_id AND o.status = :cancelled), " +
+           "revenue = (SELECT COALESCE(SUM(o.amount), 0) FROM orders o JOIN courses c ON o.course_id = c.id " +
+           "WHERE c.teacher_id = s.teacher_id AND o.status = :completed), " +
+           "updated_at = CURRENT_TIMESTAMP", nativeQuery = true)
+    int rebuildAll(@Param("completed") String completed, @Param("cancelled") String cancelled);
+}
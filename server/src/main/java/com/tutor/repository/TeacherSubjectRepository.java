@@ -0,0 +1,19 @@
+package com.tutor.repository;
+
+import com.tutor.entity.Teacher;
+import com.tutor.entity.TeacherSubject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TeacherSubjectRepository extends JpaRepository<TeacherSubject, Long> {
+    
+    List<TeacherSubject> findByTeacher(Teacher teacher);
+    
+    @Modifying
+    @Query("DELETE FROM TeacherSubject s WHERE s.teacher = :teacher")
+    void deleteByTeacher(@Param("teacher") Teacher teacher);
+}
@@ -0,0 +1,439 @@
+package com.tutor.service;
+
+import com.tutor.dto.UploadSessionDTO;
+import com.tutor.utils.BlobStore;
+import com.tutor.utils.FileTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 资质证书文件存储服务
+ * 证书以流的方式写入磁盘，支持分片断点续传，内存占用与文件大小无关。
+ * 每个用户同时未完成的分片上传不超过upload-max-sessions-per-user个，超过upload-idle-minutes没有写入分片的上传视为放弃，
+ * 创建新会话时先清理该用户放弃的上传，其余由定时任务清理
+ * 证书不公开访问，下载链接带有过期时间和签名。
+ * 只接受PDF和PNG、JPEG、GIF、WEBP图片，类型按文件头识别，不采信客户端声明的类型
+ */
+@Service
+public class CertificateFileService {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificateFileService.class);
+    private static final int LOCK_STRIPES = 64;
+    private static final String UNSUPPORTED_TYPE = "只支持PDF和PNG、JPEG、GIF、WEBP格式的证书文件";
+
+    @Autowired
+    @Qualifier("certificateBlobStore")
+    private BlobStore certificateBlobStore;
+
+    @Value("${storage.upload-dir:data/uploads}")
+    private String uploadDir;
+
+    @Value("${storage.certificate-max-size:10485760}")
+    private long maxSize;
+
+    @Value("${storage.upload-chunk-size:1048576}")
+    private long chunkSize;
+
+    @Value("${storage.upload-idle-minutes:30}")
+    private long uploadIdleMinutes;
+
+    @Value("${storage.upload-max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    @Value("${storage.link-secret:${jwt.secret:tutorSystemSecretKey12345678901234567890}}")
+    private String linkSecret;
+
+    @Value("${storage.link-ttl-seconds:3600}")
+    private long linkTtlSeconds;
+
+    private Path uploadRoot;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    // 各用户未完成的上传ID，启动时按临时目录中的会话文件恢复
+    private final ConcurrentHashMap<Long, Set<String>> userUploads = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        uploadRoot = Paths.get(uploadDir);
+        Files.createDirectories(uploadRoot);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadRoot, "*.meta")) {
+            for (Path meta : files) {
+                String uploadId = uploadIdOf(meta);
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+                String userId = properties.getProperty("userId");
+                if (userId != null) {
+                    uploadsOf(Long.valueOf(userId)).add(uploadId);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已保存的证书文件信息
+     */
+    public static class StoredFile {
+        private final String hash;
+        private final String fileName;
+        private final long fileSize;
+        private final String contentType;
+
+        public StoredFile(String hash, String fileName, long fileSize, String contentType) {
+            this.hash = hash;
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+            this.contentType = contentType;
+        }
+
+        public String getHash() { return hash; }
+        public String getFileName() { return fileName; }
+        public long getFileSize() { return fileSize; }
+        public String getContentType() { return contentType; }
+    }
+
+    /**
+     * 一次性保存完整文件（multipart上传），内容类型按文件头识别
+     */
+    public StoredFile store(InputStream in, String fileName, long fileSize) throws IOException {
+        checkSize(fileSize);
+        InputStream buffered = new BufferedInputStream(in);
+        String contentType = FileTypes.detect(buffered);
+        if (contentType == null || !FileTypes.DOCUMENT_TYPES.contains(contentType)) {
+            throw new IllegalArgumentException(UNSUPPORTED_TYPE);
+        }
+        String hash = certificateBlobStore.put(buffered, maxSize);
+        return new StoredFile(hash, fileName, certificateBlobStore.size(hash), contentType);
+    }
+
+    /**
+     * 删除已保存的证书文件，用于保存后登记资质失败的情况；调用方需确认没有资质引用该文件
+     */
+    public void delete(String hash) {
+        try {
+            certificateBlobStore.delete(hash);
+        } catch (IOException e) {
+            log.warn("删除证书文件 {} 失败: {}", hash, e.getMessage());
+        }
+    }
+
+    /**
+     * 保存历史Base64 Data URL格式的证书
+     */
+    public StoredFile storeDataUrl(String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        if (!dataUrl.startsWith("data:") || comma < 0) {
+            throw new IllegalArgumentException("文件格式不正确");
+        }
+        byte[] bytes = Base64.getMimeDecoder().decode(dataUrl.substring(comma + 1));
+        try {
+            return store(new ByteArrayInputStream(bytes), null, bytes.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存文件失败", e);
+        }
+    }
+
+    /**
+     * 创建分片上传会话
+     */
+    public UploadSessionDTO startUpload(Long userId, String fileName, Long fileSize, String contentType) throws IOException {
+        if (fileSize == null || fileSize <= 0) {
+            throw new IllegalArgumentException("文件大小不能为空");
+        }
+        checkSize(fileSize);
+        if (contentType != null && !FileTypes.DOCUMENT_TYPES.contains(normalizeType(contentType))) {
+            throw new IllegalArgumentException(UNSUPPORTED_TYPE);
+        }
+        
+        Set<String> uploads = uploadsOf(userId);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        synchronized (uploads) {
+            Instant cutoff = idleCutoff();
+            for (String existing : uploads.toArray(new String[0])) {
+                expireIfIdle(userId, existing, cutoff);
+            }
+            if (uploads.size() >= maxSessionsPerUser) {
+                throw new IllegalStateException("未完成的上传过多，请先完成或取消之前的上传");
+            }
+            uploads.add(uploadId);
+        }
+        Properties meta = new Properties();
+        meta.setProperty("userId", userId.toString());
+        meta.setProperty("fileSize", fileSize.toString());
+        if (fileName != null) {
+            meta.setProperty("fileName", fileName);
+        }
+        if (contentType != null) {
+            meta.setProperty("contentType", contentType);
+        }
+        try (Writer writer = Files.newBufferedWriter(metaPath(uploadId), StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+        Files.createFile(partPath(uploadId));
+        
+        return toSession(uploadId, meta);
+    }
+
+    /**
+     * 查询上传进度，用于断点续传
+     */
+    public UploadSessionDTO getUpload(Long userId, String uploadId) throws IOException {
+        return toSession(uploadId, loadMeta(userId, uploadId));
+    }
+
+    /**
+     * 追加一个分片，offset必须等于已接收的字节数
+     */
+    public UploadSessionDTO appendChunk(Long userId, String uploadId, long offset, InputStream body) throws IOException {
+        Properties meta = loadMeta(userId, uploadId);
+        long fileSize = Long.parseLong(meta.getProperty("fileSize"));
+        Path part = partPath(uploadId);
+        
+        synchronized (lockFor(uploadId)) {
+            checkNotExpired(part);
+            long received = Files.size(part);
+            if (offset != received) {
+                throw new IllegalStateException("分片偏移量不匹配，已接收 " + received + " 字节");
+            }
+            byte[] buffer = new byte[8192];
+            try (OutputStream out = Files.newOutputStream(part, StandardOpenOption.APPEND)) {
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    received += read;
+                    if (received > fileSize) {
+                        throw new IllegalArgumentException("上传内容超过声明的文件大小");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+        return toSession(uploadId, meta);
+    }
+
+    /**
+     * 完成分片上传，将文件移入证书存储
+     */
+    public StoredFile completeUpload(Long userId, String uploadId) throws IOException {
+        Properties meta = loadMeta(userId, uploadId);
+        long fileSize = Long.parseLong(meta.getProperty("fileSize"));
+        Path part = partPath(uploadId);
+        
+        synchronized (lockFor(uploadId)) {
+            checkNotExpired(part);
+            if (Files.size(part) != fileSize) {
+                throw new IllegalStateException("文件尚未上传完成");
+            }
+            StoredFile stored;
+            try (InputStream in = Files.newInputStream(part)) {
+                stored = store(in, meta.getProperty("fileName"), fileSize);
+            }
+            removeUpload(userId, uploadId);
+            return stored;
+        }
+    }
+
+    /**
+     * 取消未完成的分片上传
+     */
+    public void cancelUpload(Long userId, String uploadId) throws IOException {
+        loadMeta(userId, uploadId);
+        synchronized (lockFor(uploadId)) {
+            removeUpload(userId, uploadId);
+        }
+    }
+
+    public InputStream open(String hash) throws IOException {
+        return certificateBlobStore.open(hash);
+    }
+
+    /**
+     * 生成带签名的下载链接
+     * 过期时间按有效期对齐，同一时间窗口内生成的链接相同，便于浏览器缓存
+     */
+    public String signedDownloadPath(Long qualificationId, String hash) {
+        long now = Instant.now().getEpochSecond();
+        long expires = (now / linkTtlSeconds + 2) * linkTtlSeconds;
+        return "/api/qualifications/files/" + qualificationId
+                + "?expires=" + expires
+                + "&signature=" + sign(qualificationId, hash, expires);
+    }
+
+    public boolean verifySignature(Long qualificationId, String hash, long expires, String signature) {
+        if (signature == null || expires < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        byte[] expected = sign(qualificationId, hash, expires).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 清理放弃的上传
+     */
+    @Scheduled(fixedDelayString = "${storage.upload-cleanup-interval-ms:300000}")
+    public void cleanupExpiredUploads() {
+        Instant cutoff = idleCutoff();
+        int expired = 0;
+        for (Long userId : userUploads.keySet()) {
+            Set<String> uploads = uploadsOf(userId);
+            synchronized (uploads) {
+                for (String uploadId : uploads.toArray(new String[0])) {
+                    if (expireIfIdle(userId, uploadId, cutoff)) {
+                        expired++;
+                    }
+                }
+            }
+        }
+        if (expired > 0) {
+            log.info("已清理 {} 个超过 {} 分钟未写入的上传", expired, uploadIdleMinutes);
+        }
+    }
+
+    private Instant idleCutoff() {
+        return Instant.now().minus(Duration.ofMinutes(uploadIdleMinutes));
+    }
+
+    /**
+     * 上传超过空闲时间没有写入时删除，返回是否删除
+     * 最后活动时间取分片文件的修改时间（每次追加分片都会更新），还没有写入分片时取会话创建时间
+     */
+    private boolean expireIfIdle(Long userId, String uploadId, Instant cutoff) {
+        synchronized (lockFor(uploadId)) {
+            try {
+                Path part = partPath(uploadId);
+                Path meta = metaPath(uploadId);
+                if (!Files.exists(meta)) {
+                    removeUpload(userId, uploadId);
+                    return false;
+                }
+                Instant lastActive = Files.getLastModifiedTime(Files.exists(part) ? part : meta).toInstant();
+                if (lastActive.isBefore(cutoff)) {
+                    removeUpload(userId, uploadId);
+                    return true;
+                }
+            } catch (IOException e) {
+                log.warn("清理上传 {} 失败: {}", uploadId, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private void removeUpload(Long userId, String uploadId) throws IOException {
+        Files.deleteIfExists(partPath(uploadId));
+        Files.deleteIfExists(metaPath(uploadId));
+        uploadsOf(userId).remove(uploadId);
+    }
+
+    // 会话可能在读取元数据之后、取得上传锁之前被清理
+    private static void checkNotExpired(Path part) {
+        if (!Files.exists(part)) {
+            throw new IllegalArgumentException("上传会话不存在或已过期");
+        }
+    }
+
+    private Set<String> uploadsOf(Long userId) {
+        return userUploads.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static String uploadIdOf(Path meta) {
+        String fileName = meta.getFileName().toString();
+        return fileName.substring(0, fileName.length() - ".meta".length());
+    }
+
+    private String sign(Long qualificationId, String hash, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(linkSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] digest = mac.doFinal((qualificationId + ":" + hash + ":" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 去掉参数（如charset）并统一为小写
+    private static String normalizeType(String contentType) {
+        int semicolon = contentType.indexOf(';');
+        return (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void checkSize(long fileSize) {
+        if (fileSize > maxSize) {
+            throw new IllegalArgumentException("文件大小不能超过 " + (maxSize / 1024 / 1024) + "MB");
+        }
+    }
+
+    private Properties loadMeta(Long userId, String uploadId) throws IOException {
+        if (!uploadId.matches("[0-9a-f]{32}") || !Files.exists(metaPath(uploadId))) {
+            throw new IllegalArgumentException("上传会话不存在或已过期");
+        }
+        Properties meta = new Properties();
+        try (Reader reader = Files.newBufferedReader(metaPath(uploadId), StandardCharsets.UTF_8)) {
+            meta.load(reader);
+        }
+        if (!userId.toString().equals(meta.getProperty("userId"))) {
+            throw new IllegalArgumentException("上传会话不存在或已过期");
+        }
+        return meta;
+    }
+
+    private UploadSessionDTO toSession(String uploadId, Properties meta) throws IOException {
+        return UploadSessionDTO.builder()
+                .uploadId(uploadId)
+                .fileName(meta.getProperty("fileName"))
+                .contentType(meta.getProperty("contentType"))
+                .fileSize(Long.parseLong(meta.getProperty("fileSize")))
+                .received(Files.size(partPath(uploadId)))
+                .chunkSize(chunkSize)
+                .maxSize(maxSize)
+                .build();
+    }
+
+    private Object lockFor(String uploadId) {
+        return locks[Math.floorMod(uploadId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Path partPath(String uploadId) {
+        return uploadRoot.resolve(uploadId + ".part");
+    }
+
+    private Path metaPath(String uploadId) {
+        return uploadRoot.resolve(uploadId + ".meta");
+    }
+}
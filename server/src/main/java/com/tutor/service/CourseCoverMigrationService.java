@@ -0,0 +1,57 @@
+package com.tutor.service;
+
+import com.tutor.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 启动时将courses.cover_data中以Base64内联保存的历史封面迁移到媒体存储，courses.cover只保留哈希
+ */
+@Component
+public class CourseCoverMigrationService implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseCoverMigrationService.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private MediaService mediaService;
+    
+    @Override
+    @Transactional
+    public void run(String... args) {
+        List<Number> courseIds = courseRepository.findIdsWithInlineCover();
+        if (courseIds.isEmpty()) {
+            return;
+        }
+        
+        int migrated = 0;
+        // 逐条读取封面，避免一次性把所有图片加载到内存
+        for (Number id : courseIds) {
+            Long courseId = id.longValue();
+            String cover = courseRepository.findCoverById(courseId);
+            if (cover == null || !cover.startsWith("data:")) {
+                log.warn("课程 {} 的封面不是Base64图片，跳过迁移", courseId);
+                continue;
+            }
+            String hash;
+            try {
+                hash = mediaService.storeDataUrl(cover);
+            } catch (RuntimeException e) {
+                // 无法解码或不是允许的图片格式，保留原数据，不影响其他课程和应用启动
+                log.warn("课程 {} 的封面无法迁移，跳过: {}", courseId, e.getMessage());
+                continue;
+            }
+            courseRepository.updateCover(courseId, hash);
+            migrated++;
+        }
+        log.info("已迁移 {} 个课程封面到媒体存储", migrated);
+    }
+}
@@ -0,0 +1,71 @@
+package com.tutor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.tutor.config.CacheConfig;
+import com.tutor.dto.CourseDetailDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.function.Function;
+
+/**
+ * 课程详情缓存，按课程ID缓存组合好的详情数据
+ * 课程、教师或资质变更时在事务提交后移除对应条目；详情中包含带签名的证书链接，
+ * 缓存时间需要小于链接有效期。缓存本身由CacheManager创建，规格见cache.specs.courseDetails
+ */
+@Service
+public class CourseDetailCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache<Long, CourseDetailDTO> details;
+
+    // 按课程删除教师缓存时需要遍历条目，因此直接使用底层的Caffeine缓存
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        details = (Cache<Long, CourseDetailDTO>) cacheManager.getCache(CacheConfig.COURSE_DETAILS).getNativeCache();
+    }
+
+    public CourseDetailDTO get(Long courseId, Function<Long, CourseDetailDTO> loader) {
+        return details.get(courseId, loader);
+    }
+
+    /**
+     * 移除课程的详情缓存
+     */
+    public void evict(Long courseId) {
+        afterCommit(() -> details.invalidate(courseId));
+    }
+
+    /**
+     * 移除教师所有课程的详情缓存，teacherId为教师的用户ID
+     */
+    public void evictTeacher(Long teacherId) {
+        afterCommit(() -> details.asMap().values()
+                .removeIf(detail -> teacherId.equals(detail.getCourse().getTeacherId())));
+    }
+
+    public void evictAll() {
+        afterCommit(details::invalidateAll);
+    }
+
+    // 在事务提交后再移除，避免并发请求在提交前把旧数据重新放入缓存
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
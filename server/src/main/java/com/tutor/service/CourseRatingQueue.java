@@ -0,0 +1,300 @@
+package com.tutor.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 课程评分的写回队列
+ * 评价增删改的事务提交后把评分总和、评价数量和星级分布的增量按课程合并在内存中，
+ * 后台每隔一个窗口对每门有增量的课程执行一条 col = col + ? 的UPDATE：同一窗口内同一课程的多次评价合并为一次写入，
+ * 评价请求不再等待courses行锁，写入也不需要扫描课程的全部评价。
+ * 写入失败的增量放回队列下次重试；待写入的课程数达到上限时由提交线程先同步写出队列，应用关闭前写完剩余课程。
+ * 进程异常退出丢失的增量由定期核对修正：按课程ID分段读取评价表的实际聚合和courses中的聚合列，
+ * 偏差为两者之差减去本实例尚未写入的增量。其他实例尚未写入的增量也会短暂表现为偏差，
+ * 因此同一课程连续两次核对的偏差相同才按偏差相对修正；核对不阻塞评价的提交。
+ * 待写入课程数以tutor.rating.queue.pending导出
+ */
+@Service
+public class CourseRatingQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseRatingQueue.class);
+
+    private static final String AGGREGATE_SQL = "SELECT c.id, c.rating_sum, c.rating_count, c.rating_star1, " +
+            "c.rating_star2, c.rating_star3, c.rating_star4, c.rating_star5, " +
+            "COALESCE(SUM(r.rating), 0), COUNT(r.id), " +
+            "COALESCE(SUM(CASE WHEN r.rating < 1.5 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN r.rating >= 1.5 AND r.rating < 2.5 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN r.rating >= 2.5 AND r.rating < 3.5 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN r.rating >= 3.5 AND r.rating < 4.5 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN r.rating >= 4.5 THEN 1 ELSE 0 END), 0) " +
+            "FROM courses c LEFT JOIN reviews r ON r.course_id = c.id WHERE c.id BETWEEN ? AND ? " +
+            "GROUP BY c.id, c.rating_sum, c.rating_count, c.rating_star1, c.rating_star2, " +
+            "c.rating_star3, c.rating_star4, c.rating_star5";
+
+    private static final String RECONCILE_LOCK = "rating-reconcile";
+    private static final Duration RECONCILE_LEASE = Duration.ofMinutes(5);
+
+    // 核对时每段读取的课程ID范围
+    private static final int RECONCILE_CHUNK = 1000;
+
+    @Autowired
+    private CourseRatingService courseRatingService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rating.queue.max-pending:10000}")
+    private int maxPending;
+
+    private final ConcurrentHashMap<Long, RatingDelta> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 上次核对发现的偏差，只在核对任务中访问
+    private Map<Long, RatingDelta> suspectedDrift = Collections.emptyMap();
+
+    /**
+     * 新增评价，在当前事务提交后计入
+     */
+    public void onReviewCreated(Long courseId, double rating) {
+        submit(courseId, RatingDelta.of(rating, 1));
+    }
+
+    /**
+     * 修改评价的评分
+     */
+    public void onReviewUpdated(Long courseId, double oldRating, double newRating) {
+        submit(courseId, RatingDelta.of(oldRating, -1).plus(RatingDelta.of(newRating, 1)));
+    }
+
+    /**
+     * 删除评价
+     */
+    public void onReviewDeleted(Long courseId, double rating) {
+        submit(courseId, RatingDelta.of(rating, -1));
+    }
+
+    /**
+     * 写入所有课程累计的增量，单门课程失败时放回队列，下个窗口重试
+     */
+    @Scheduled(fixedDelayString = "${rating.queue.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            for (Long courseId : pending.keySet()) {
+                RatingDelta delta = pending.remove(courseId);
+                if (delta == null || delta.isZero()) {
+                    continue;
+                }
+                try {
+                    apply(courseId, delta);
+                } catch (RuntimeException e) {
+                    pending.merge(courseId, delta, RatingDelta::plus);
+                    log.error("课程 {} 的评分写入失败，稍后重试", courseId, e);
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 核对课程评分，启动时先记录一次偏差，之后定期核对，偏差连续两次相同的课程按偏差修正
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${rating.reconcile-cron:0 30 * * * *}")
+    public void reconcile() {
+        if (!schedulerLockService.tryAcquire(RECONCILE_LOCK, RECONCILE_LEASE)) {
+            return;
+        }
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM courses", Long.class);
+            Map<Long, RatingDelta> drift = new HashMap<>();
+            for (long from = 1; maxId != null && from <= maxId; from += RECONCILE_CHUNK) {
+                readDrift(from, from + RECONCILE_CHUNK - 1, drift);
+            }
+            Map<Long, RatingDelta> confirmed = new TreeMap<>();
+            drift.forEach((courseId, delta) -> {
+                if (delta.equals(suspectedDrift.get(courseId))) {
+                    confirmed.put(courseId, delta);
+                }
+            });
+            confirmed.keySet().forEach(drift::remove);
+            suspectedDrift = drift;
+            confirmed.forEach(this::apply);
+            if (!confirmed.isEmpty()) {
+                log.warn("已修正 {} 门课程的评分聚合", confirmed.size());
+                log.debug("课程评分修正: {}", confirmed);
+            }
+        } catch (RuntimeException e) {
+            log.error("核对课程评分失败", e);
+        } finally {
+            schedulerLockService.release(RECONCILE_LOCK);
+        }
+    }
+
+    /**
+     * 读取一段课程的偏差：评价表的实际聚合 - 聚合列 - 本实例尚未写入的增量
+     */
+    private void readDrift(long fromId, long toId, Map<Long, RatingDelta> drift) {
+        // 持有写入锁，读取期间本实例的增量不会在内存和数据库之间移动
+        flushLock.lock();
+        try {
+            jdbcTemplate.query(AGGREGATE_SQL, rs -> {
+                long courseId = rs.getLong(1);
+                int[] stars = new int[5];
+                for (int i = 0; i < 5; i++) {
+                    stars[i] = rs.getInt(11 + i) - rs.getInt(4 + i);
+                }
+                RatingDelta delta = new RatingDelta(rs.getDouble(9) - rs.getDouble(2), rs.getInt(10) - rs.getInt(3), stars);
+                RatingDelta unflushed = pending.get(courseId);
+                if (unflushed != null) {
+                    delta = delta.plus(unflushed.negate());
+                }
+                if (!delta.isZero()) {
+                    drift.put(courseId, delta);
+                }
+            }, fromId, toId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("tutor.rating.queue.pending", pending, Map::size)
+                .description("评分增量尚未写入数据库的课程数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("应用关闭时仍有 {} 门课程的评分增量未写入，将由之后的核对修正", pending.size());
+        }
+    }
+
+    private void apply(Long courseId, RatingDelta delta) {
+        courseRatingService.apply(courseId, delta.sum, delta.count, delta.stars);
+    }
+
+    private void submit(Long courseId, RatingDelta delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(courseId, delta);
+                }
+            });
+        } else {
+            enqueue(courseId, delta);
+        }
+    }
+
+    private void enqueue(Long courseId, RatingDelta delta) {
+        if (pending.size() >= maxPending && !pending.containsKey(courseId)) {
+            flush();
+        }
+        pending.merge(courseId, delta, RatingDelta::plus);
+    }
+
+    /**
+     * 一门课程的评分增量：评分总和、评价数量和1-5星各自的数量，不可变
+     */
+    static final class RatingDelta {
+
+        // 评分总和按浮点数累加，差值小于此值视为相同
+        private static final double EPSILON = 1e-6;
+
+        private final double sum;
+        private final int count;
+        private final int[] stars;
+
+        RatingDelta(double sum, int count, int[] stars) {
+            this.sum = sum;
+            this.count = count;
+            this.stars = stars;
+        }
+
+        /**
+         * 一条评价的增量，sign为1表示新增，-1表示移除
+         */
+        static RatingDelta of(double rating, int sign) {
+            int[] stars = new int[5];
+            stars[CourseRatingService.starOf(rating) - 1] = sign;
+            return new RatingDelta(sign * rating, sign, stars);
+        }
+
+        RatingDelta plus(RatingDelta other) {
+            int[] merged = new int[5];
+            for (int i = 0; i < 5; i++) {
+                merged[i] = stars[i] + other.stars[i];
+            }
+            return new RatingDelta(sum + other.sum, count + other.count, merged);
+        }
+
+        RatingDelta negate() {
+            int[] negated = new int[5];
+            for (int i = 0; i < 5; i++) {
+                negated[i] = -stars[i];
+            }
+            return new RatingDelta(-sum, -count, negated);
+        }
+
+        boolean isZero() {
+            return Math.abs(sum) < EPSILON && count == 0 && Arrays.equals(stars, new int[5]);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RatingDelta)) {
+                return false;
+            }
+            RatingDelta other = (RatingDelta) o;
+            return Math.abs(sum - other.sum) < EPSILON && count == other.count && Arrays.equals(stars, other.stars);
+        }
+
+        // 总和只按误差范围比较，不参与哈希
+        @Override
+        public int hashCode() {
+            return 31 * count + Arrays.hashCode(stars);
+        }
+
+        @Override
+        public String toString() {
+            return "sum=" + sum + " count=" + count + " stars=" + Arrays.toString(stars);
+        }
+    }
+}
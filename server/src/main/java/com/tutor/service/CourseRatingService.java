@@ -0,0 +1,61 @@
+package com.tutor.service;
+
+import com.tutor.config.CacheConfig;
+import com.tutor.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 课程评分聚合服务
+ * 每门课程保存评分总和、评价数量和1-5星分布。评价变动的增量由CourseRatingQueue合并后
+ * 按课程一条UPDATE累加写入，偏差由CourseRatingQueue的定期核对按偏差相对修正
+ */
+@Service
+public class CourseRatingService {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseRatingService.class);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseDetailCache courseDetailCache;
+
+    /**
+     * 累加单个课程的评分增量，stars为1-5星各自的增量
+     * 队列满时由评价事务的afterCommit回调同步调用，此时原事务已提交，必须在新事务中执行，否则更新不会提交
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#courseId")
+    public void apply(Long courseId, double sumDelta, int countDelta, int[] stars) {
+        courseRepository.applyRatingDelta(courseId, sumDelta, countDelta,
+                stars[0], stars[1], stars[2], stars[3], stars[4]);
+        courseDetailCache.evict(courseId);
+    }
+
+    /**
+     * 根据评价表全量重建全部课程的评分聚合
+     * 重建覆盖聚合列，只在没有评价写入、队列中也没有增量时使用（如压测数据生成后），
+     * 运行期间的修正由CourseRatingQueue的核对完成
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
+    public void rebuildAll() {
+        int courses = courseRepository.rebuildAllRatingAggregates();
+        courseRepository.refreshAllAverageRatings();
+        courseDetailCache.evictAll();
+        log.info("已重建 {} 门课程的评分聚合", courses);
+    }
+
+    /**
+     * 评分所属的星级，半分四舍五入
+     */
+    public static int starOf(double rating) {
+        return Math.max(1, Math.min(5, (int) Math.floor(rating + 0.5)));
+    }
+}
@@ -0,0 +1,403 @@
+package com.tutor.service;
+
+import com.tutor.entity.Course;
+import com.tutor.repository.CourseRepository;
+import com.tutor.utils.SearchTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZoneId;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 课程全文搜索索引
+ * 在内存中维护课程标题、分类和简介的倒排索引，按TF-IDF计算相关度，
+ * 标题、分类、简介的权重分别为3、2、1。课程增删改在事务提交后同步到索引，
+ * 启动时及每天定期从数据库全量重建。索引未就绪时由调用方回退到数据库查询。
+ * 索引只在本实例内存中，多实例部署时其他实例上的课程变更要到本实例下次全量重建（search.rebuild-cron）才会被搜索到，
+ * 这段时间内新课程搜不到、已删除或修改的课程仍按旧内容命中（结果按ID回表，已删除的课程不会返回）
+ */
+@Service
+public class CourseSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSearchIndex.class);
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f; // 前缀命中的得分折扣
+    private static final int MAX_PREFIX_TERMS = 256; // 单个查询词最多展开的前缀词数，超过时保留文档数最多的词
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private Index index = new Index();
+    private List<Document> pendingChanges; // 重建期间发生的变更，重建完成后重放
+    private volatile boolean ready;
+
+    /**
+     * 按关键词搜索课程，返回按相关度排序的课程ID分页
+     * 索引未就绪或关键词中没有可检索的词时返回null，由调用方回退到数据库查询
+     */
+    public Page<Long> search(String keyword, String category, Long teacherId, Pageable pageable) {
+        List<String> tokens = SearchTokenizer.tokenizeQuery(keyword);
+        if (!ready || tokens.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            List<Long> ids = index.search(tokens, category, teacherId);
+            if (ids == null) {
+                return null;
+            }
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + pageable.getPageSize(), ids.size());
+            return new PageImpl<>(new ArrayList<>(ids.subList(from, to)), pageable, ids.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新课程的索引，在当前事务提交后生效
+     */
+    public void index(Course course) {
+        afterCommit(toDocument(course));
+    }
+
+    /**
+     * 删除课程的索引，在当前事务提交后生效
+     */
+    public void remove(Long courseId) {
+        afterCommit(new Document(courseId));
+    }
+
+    /**
+     * 启动后在后台加载索引，不阻塞应用启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread thread = new Thread(this::rebuild, "course-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 从数据库全量重建索引，修正其他实例或直接修改数据库带来的偏差
+     */
+    @Scheduled(cron = "${search.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long start = System.currentTimeMillis();
+            Index fresh = new Index();
+            Long lastId = 0L;
+            List<Course> batch;
+            do {
+                batch = courseRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (Course course : batch) {
+                    fresh.apply(toDocument(course));
+                    lastId = course.getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+
+            lock.writeLock().lock();
+            try {
+                pendingChanges.forEach(fresh::apply);
+                index = fresh;
+                ready = true;
+            } finally {
+                pendingChanges = null;
+                lock.writeLock().unlock();
+            }
+            log.info("课程搜索索引重建完成，共 {} 门课程，耗时 {} ms", fresh.live, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("课程搜索索引重建失败", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void afterCommit(Document document) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(document);
+                }
+            });
+        } else {
+            apply(document);
+        }
+    }
+
+    private void apply(Document document) {
+        lock.writeLock().lock();
+        try {
+            index.apply(document);
+            if (pendingChanges != null) {
+                pendingChanges.add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Document toDocument(Course course) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, course.getTitle(), TITLE_WEIGHT);
+        addField(weights, course.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, course.getDescription(), DESCRIPTION_WEIGHT);
+
+        String[] terms = new String[weights.size()];
+        float[] termWeights = new float[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            terms[i] = entry.getKey();
+            termWeights[i++] = entry.getValue();
+        }
+        long createdAt = course.getCreatedAt() != null
+                ? course.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+        return new Document(course.getId(), course.getTeacher().getId(), course.getCategory(),
+                createdAt, terms, termWeights);
+    }
+
+    // 词频取对数，避免长简介中的重复词压过标题
+    private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : SearchTokenizer.tokenize(text)) {
+            counts.merge(token, 1, Integer::sum);
+        }
+        counts.forEach((term, count) ->
+                weights.merge(term, fieldWeight * (1f + (float) Math.log(count)), Float::sum));
+    }
+
+    /**
+     * 一门课程的索引内容，terms为null表示删除
+     */
+    private static final class Document {
+        final Long courseId;
+        final Long teacherId;
+        final String category;
+        final long createdAt;
+        final String[] terms;
+        final float[] weights;
+
+        Document(Long courseId) {
+            this(courseId, null, null, 0L, null, null);
+        }
+
+        Document(Long courseId, Long teacherId, String category, long createdAt, String[] terms, float[] weights) {
+            this.courseId = courseId;
+            this.teacherId = teacherId;
+            this.category = category;
+            this.createdAt = createdAt;
+            this.terms = terms;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * 某个词的倒排列表，按文档序号递增保存
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size++] = weight;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+                System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * 倒排索引本体，文档序号只增不减，课程更新时分配新序号，
+     * 这样倒排列表始终只在末尾追加；删除留下的空位在下次全量重建时回收
+     */
+    private static final class Index {
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        Document[] docs = new Document[1024];
+        int size;
+        int live;
+
+        void apply(Document document) {
+            Integer old = ordinals.remove(document.courseId);
+            if (old != null) {
+                for (String term : docs[old].terms) {
+                    Postings postings = terms.get(term);
+                    postings.remove(old);
+                    if (postings.size == 0) {
+                        terms.remove(term);
+                    }
+                }
+                docs[old] = null;
+                live--;
+            }
+            if (document.terms == null) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            int ordinal = size++;
+            docs[ordinal] = document;
+            ordinals.put(document.courseId, ordinal);
+            live++;
+            for (int i = 0; i < document.terms.length; i++) {
+                terms.computeIfAbsent(document.terms[i], t -> new Postings()).add(ordinal, document.weights[i]);
+            }
+        }
+
+        // 每个查询词按前缀展开，文档需命中全部查询词。只为候选文档累计得分，不按索引大小分配数组
+        List<Long> search(List<String> tokens, String category, Long teacherId) {
+            List<List<Map.Entry<String, Postings>>> clauses = new ArrayList<>(tokens.size());
+            List<Integer> postingCounts = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                List<Map.Entry<String, Postings>> expansion = expand(token);
+                if (expansion.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                int postingCount = 0;
+                for (Map.Entry<String, Postings> entry : expansion) {
+                    postingCount += entry.getValue().size;
+                }
+                clauses.add(expansion);
+                postingCounts.add(postingCount);
+            }
+
+            // 从倒排列表最短的查询词开始求交集，候选集合尽早缩小
+            List<Integer> order = new ArrayList<>(clauses.size());
+            for (int i = 0; i < clauses.size(); i++) {
+                order.add(i);
+            }
+            order.sort((a, b) -> Integer.compare(postingCounts.get(a), postingCounts.get(b)));
+
+            Map<Integer, Float> scores = null;
+            for (int clause : order) {
+                String token = tokens.get(clause);
+                Map<Integer, Float> next = new HashMap<>();
+                for (Map.Entry<String, Postings> entry : clauses.get(clause)) {
+                    Postings postings = entry.getValue();
+                    float idf = (float) Math.log(1 + (live - postings.size + 0.5) / (postings.size + 0.5));
+                    if (entry.getKey().length() != token.length()) {
+                        idf *= PREFIX_MATCH_FACTOR;
+                    }
+                    for (int k = 0; k < postings.size; k++) {
+                        int doc = postings.docs[k];
+                        Float previous = next.get(doc);
+                        if (previous == null) {
+                            previous = scores == null ? Float.valueOf(0f) : scores.get(doc);
+                            if (previous == null) {
+                                continue;
+                            }
+                        }
+                        next.put(doc, previous + postings.weights[k] * idf);
+                    }
+                }
+                if (next.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                scores = next;
+            }
+
+            Map<Integer, Float> matched = scores;
+            List<Integer> results = new ArrayList<>(matched.size());
+            for (Integer doc : matched.keySet()) {
+                Document document = docs[doc];
+                if (document != null
+                        && (category == null || category.equals(document.category))
+                        && (teacherId == null || teacherId.equals(document.teacherId))) {
+                    results.add(doc);
+                }
+            }
+            results.sort((a, b) -> {
+                int c = Float.compare(matched.get(b), matched.get(a));
+                if (c == 0) {
+                    c = Long.compare(docs[b].createdAt, docs[a].createdAt);
+                }
+                return c != 0 ? c : Long.compare(docs[b].courseId, docs[a].courseId);
+            });
+
+            List<Long> ids = new ArrayList<>(results.size());
+            for (Integer doc : results) {
+                ids.add(docs[doc].courseId);
+            }
+            return ids;
+        }
+
+        // 查询词本身总是保留；以它为前缀的词超过MAX_PREFIX_TERMS时只保留文档数最多的词，
+        // 只命中被舍弃的罕见词的课程搜不到，但不必为很短的查询词扫描大量倒排列表
+        private List<Map.Entry<String, Postings>> expand(String token) {
+            Postings exact = terms.get(token);
+            int limit = exact != null ? MAX_PREFIX_TERMS - 1 : MAX_PREFIX_TERMS;
+            PriorityQueue<Map.Entry<String, Postings>> top = new PriorityQueue<>(
+                    (a, b) -> Integer.compare(a.getValue().size, b.getValue().size));
+            for (Map.Entry<String, Postings> entry : terms.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                top.add(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Map.Entry<String, Postings>> expansion = new ArrayList<>(top.size() + 1);
+            if (exact != null) {
+                expansion.add(new AbstractMap.SimpleImmutableEntry<>(token, exact));
+            }
+            expansion.addAll(top);
+            return expansion;
+        }
+    }
+}
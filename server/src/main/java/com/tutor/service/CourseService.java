@@ -2,16 +2,24 @@ package com.tutor.service;
 
 import com.tutor.dto.CourseCreateDTO;
 import com.tutor.dto.CourseDTO;
+import com.tutor.dto.CourseDetailDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface CourseService {
     
     Page<CourseDTO> getAllCourses(String category, String keyword, int page, int size);
     
+    // 游标分页浏览课程，cursor为空表示第一页
+    Slice<CourseDTO> getCoursesAfter(String category, String cursor, int size);
+    
     Page<CourseDTO> getTeacherCourses(Long teacherId, String category, String keyword, int page, int size);
     
     CourseDTO getCourseById(Long id);
     
+    // 课程详情页数据：课程、教师学历专业和已通过审核的资质，按课程缓存
+    CourseDetailDTO getCourseDetail(Long id);
+    
     CourseDTO createCourse(CourseCreateDTO courseCreateDTO, Long teacherId);
     
     CourseDTO updateCourse(Long id, CourseCreateDTO courseUpdateDTO, Long teacherId);
@@ -1,10 +1,13 @@
 package com.tutor.service;
 
 import com.tutor.entity.Teacher;
+import com.tutor.entity.TeacherStatus;
 import com.tutor.entity.User;
 import com.tutor.entity.UserRole;
 import com.tutor.repository.TeacherRepository;
 import com.tutor.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -16,17 +19,28 @@ import java.util.Optional;
 @Component
 public class DataInitializationService implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataInitializationService.class);
+
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private TeacherRepository teacherRepository;
     
+    @Autowired
+    private TeacherSubjectService teacherSubjectService;
+    
     @Override
     @Transactional
     public void run(String... args) throws Exception {
         // 同步教师数据
         syncTeachers();
+        
+        // 为历史教师补齐科目索引
+        int indexed = teacherSubjectService.backfill();
+        if (indexed > 0) {
+            log.info("已为 {} 位教师建立科目索引", indexed);
+        }
     }
     
     /**
@@ -46,11 +60,11 @@ public class DataInitializationService implements CommandLineRunner {
                 teacher.setUser(user);
                 teacher.setExperience(0); // 默认经验为0年
                 teacher.setSubjects(""); // 默认无教学科目
-                teacher.setStatus("active"); // 默认状态为在职
+                teacher.setStatus(TeacherStatus.ACTIVE.getValue()); // 默认状态为在职
                 
                 teacherRepository.save(teacher);
                 
-                System.out.println("已为用户 " + user.getUsername() + " 创建教师记录");
+                log.info("已为用户 {} 创建教师记录", user.getUsername());
             }
         }
     }
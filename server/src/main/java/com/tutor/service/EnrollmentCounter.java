@@ -0,0 +1,235 @@
+package com.tutor.service;
+
+import com.tutor.config.CacheConfig;
+import com.tutor.entity.Course;
+import com.tutor.entity.OrderStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 课程选课人数的写回计数器
+ * 选课人数为已支付和已完成的订单数。订单支付、已支付订单取消的事务提交后在内存中累加增量，
+ * 计数按课程分开并使用LongAdder分散并发写入；后台定期把非零增量合并成一批
+ * UPDATE courses SET student_count = student_count + ? 写入，支付请求不再竞争courses行锁。
+ * 写入成功后才从计数中扣除已写入的部分，写入失败时保留到下次重试。
+ * 进程异常退出丢失的增量由定期核对修正：按课程ID分段读取各课程的订单数和student_count，
+ * 偏差为订单数减去student_count和本实例尚未写入的增量。其他实例尚未写入的增量、
+ * 读取时正在提交的订单也会短暂表现为偏差，因此同一课程连续两次核对的偏差相同才按偏差相对修正，
+ * 不直接覆盖student_count；核对不阻塞支付的提交。
+ * 尚未写入的课程数以tutor.enrollment.pending导出
+ */
+@Service
+public class EnrollmentCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentCounter.class);
+
+    private static final String FLUSH_SQL = "UPDATE courses SET student_count = student_count + ? WHERE id = ?";
+
+    private static final String COUNT_SQL = "SELECT c.id, c.student_count, COUNT(o.id) FROM courses c " +
+            "LEFT JOIN orders o ON o.course_id = c.id AND o.status IN (?, ?) " +
+            "WHERE c.id BETWEEN ? AND ? GROUP BY c.id, c.student_count";
+
+    private static final String RECONCILE_LOCK = "enrollment-reconcile";
+    private static final Duration RECONCILE_LEASE = Duration.ofMinutes(5);
+
+    // 核对时每段读取的课程ID范围
+    private static final int RECONCILE_CHUNK = 1000;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private CourseDetailCache courseDetailCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 上次核对发现的偏差，只在核对任务中访问
+    private Map<Long, Long> suspectedDrift = Collections.emptyMap();
+
+    /**
+     * 订单支付成功，在当前事务提交后计入
+     */
+    public void onOrderPaid(Long courseId) {
+        afterCommit(() -> deltas.computeIfAbsent(courseId, id -> new LongAdder()).increment());
+    }
+
+    /**
+     * 已支付的订单被取消，在当前事务提交后扣除
+     */
+    public void onPaidOrderCancelled(Long courseId) {
+        afterCommit(() -> deltas.computeIfAbsent(courseId, id -> new LongAdder()).decrement());
+    }
+
+    /**
+     * 把累计的增量批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${enrollment.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            // 按课程ID排序写入，多个实例同时写入时加锁顺序一致
+            Map<Long, Long> batch = new TreeMap<>();
+            deltas.forEach((courseId, adder) -> {
+                long delta = adder.sum();
+                if (delta != 0) {
+                    batch.put(courseId, delta);
+                }
+            });
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Object[]> args = new ArrayList<>(batch.size());
+            batch.forEach((courseId, delta) -> args.add(new Object[]{delta, courseId}));
+            try {
+                transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, args));
+            } catch (RuntimeException e) {
+                log.error("写入 {} 门课程的选课人数失败，稍后重试", batch.size(), e);
+                return;
+            }
+            // 只扣除已写入的部分，写入期间新增的计数留到下一批
+            batch.forEach((courseId, delta) -> deltas.get(courseId).add(-delta));
+            evict(batch.keySet());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 核对选课人数，启动时先记录一次偏差，之后定期核对，偏差连续两次相同的课程按偏差修正
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${enrollment.reconcile-cron:0 */10 * * * *}")
+    public void reconcile() {
+        if (!schedulerLockService.tryAcquire(RECONCILE_LOCK, RECONCILE_LEASE)) {
+            return;
+        }
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM courses", Long.class);
+            Map<Long, Long> drift = new HashMap<>();
+            for (long from = 1; maxId != null && from <= maxId; from += RECONCILE_CHUNK) {
+                readDrift(from, from + RECONCILE_CHUNK - 1, drift);
+            }
+            Map<Long, Long> confirmed = new TreeMap<>();
+            drift.forEach((courseId, delta) -> {
+                if (delta.equals(suspectedDrift.get(courseId))) {
+                    confirmed.put(courseId, delta);
+                }
+            });
+            confirmed.keySet().forEach(drift::remove);
+            suspectedDrift = drift;
+            if (confirmed.isEmpty()) {
+                return;
+            }
+            List<Object[]> args = new ArrayList<>(confirmed.size());
+            confirmed.forEach((courseId, delta) -> args.add(new Object[]{delta, courseId}));
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, args));
+            evict(confirmed.keySet());
+            log.warn("已修正 {} 门课程的选课人数", confirmed.size());
+            log.debug("选课人数修正: {}", confirmed);
+        } catch (RuntimeException e) {
+            log.error("核对选课人数失败", e);
+        } finally {
+            schedulerLockService.release(RECONCILE_LOCK);
+        }
+    }
+
+    /**
+     * 读取一段课程的偏差：已支付和已完成的订单数 - student_count - 本实例尚未写入的增量
+     */
+    private void readDrift(long fromId, long toId, Map<Long, Long> drift) {
+        // 持有写入锁，读取期间本实例的增量不会在内存和数据库之间移动
+        flushLock.lock();
+        try {
+            jdbcTemplate.query(COUNT_SQL, rs -> {
+                long courseId = rs.getLong(1);
+                LongAdder pending = deltas.get(courseId);
+                long delta = rs.getLong(3) - rs.getLong(2) - (pending != null ? pending.sum() : 0);
+                if (delta != 0) {
+                    drift.put(courseId, delta);
+                }
+            }, OrderStatus.PAID.getValue(), OrderStatus.COMPLETED.getValue(), fromId, toId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("tutor.enrollment.pending", this, EnrollmentCounter::countPendingCourses)
+                .description("选课人数增量尚未写入数据库的课程数")
+                .register(meterRegistry);
+    }
+
+    private long countPendingCourses() {
+        return deltas.values().stream().filter(adder -> adder.sum() != 0).count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // 批量更新绕过了Hibernate，需要自己移除课程的二级缓存和课程、详情缓存
+    private void evict(Iterable<Long> courseIds) {
+        for (Long courseId : courseIds) {
+            entityManagerFactory.getCache().evict(Course.class, courseId);
+            cacheManager.getCache(CacheConfig.COURSES).evict(courseId);
+            courseDetailCache.evict(courseId);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
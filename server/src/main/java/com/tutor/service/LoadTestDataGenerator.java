@@ -0,0 +1,268 @@
+package com.tutor.service;
+
+import com.tutor.entity.OrderStatus;
+import com.tutor.entity.TeacherStatus;
+import com.tutor.entity.UserRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 压测数据生成器，只在loadtest配置下启用
+ * 按固定种子生成学生、教师、课程、订单和评价，直接用JDBC批量插入，不经过实体和缓存。
+ * 在CommandLineRunner阶段执行，此时还没有请求：选课人数在插入订单后直接算出，课程评分和教师统计在插入评价后全量重建，
+ * 搜索索引随后由应用就绪时的全量重建根据这些数据算出
+ */
+@Component
+@Profile("loadtest")
+@ConditionalOnProperty(name = "loadtest.data.enabled", havingValue = "true")
+public class LoadTestDataGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestDataGenerator.class);
+
+    public static final String STUDENT_PREFIX = "lt_student_";
+    public static final String TEACHER_PREFIX = "lt_teacher_";
+
+    private static final String[] CATEGORIES = {"数学", "英语", "物理", "化学", "语文", "生物", "编程", "音乐"};
+    private static final String[] LEVELS = {"小学", "初中", "高中", "大学", "成人"};
+    private static final String[] TOPICS = {"基础精讲", "专题突破", "真题训练", "系统复习", "思维拓展", "实战入门"};
+    private static final String[] REVIEWS = {
+            "老师讲解很清楚，例题选得很有代表性。", "课程节奏合适，收获很大。", "内容偏难，需要课后多练习。",
+            "老师很有耐心，答疑及时。", "整体不错，希望多一些练习题。"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CourseRatingService courseRatingService;
+
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Value("${loadtest.data.seed:42}")
+    private long seed;
+
+    @Value("${loadtest.data.password:pass123}")
+    private String password;
+
+    @Value("${loadtest.data.students:2000}")
+    private int students;
+
+    @Value("${loadtest.data.teachers:100}")
+    private int teachers;
+
+    @Value("${loadtest.data.courses:1000}")
+    private int courses;
+
+    @Value("${loadtest.data.orders:20000}")
+    private int orders;
+
+    @Value("${loadtest.data.review-ratio:0.6}")
+    private double reviewRatio;
+
+    @Value("${loadtest.data.batch-size:1000}")
+    private int batchSize;
+
+    private Random random;
+    private LocalDateTime now;
+
+    @Override
+    public void run(String... args) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username LIKE ?", Integer.class, STUDENT_PREFIX + "%");
+        if (existing != null && existing > 0) {
+            log.info("数据库中已有压测数据，跳过生成");
+            return;
+        }
+        random = new Random(seed);
+        now = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+        // BCrypt很慢，所有账号共用同一个密码哈希
+        String passwordHash = passwordEncoder.encode(password);
+
+        List<Long> teacherIds = insertUsers(TEACHER_PREFIX, teachers, UserRole.TEACHER, passwordHash, "139");
+        List<Long> studentIds = insertUsers(STUDENT_PREFIX, students, UserRole.USER, passwordHash, "137");
+        insertTeachers(teacherIds);
+        List<Object[]> courseRows = insertCourses(teacherIds);
+        int orderCount = insertOrders(studentIds, courseRows);
+        updateStudentCounts();
+        int reviewCount = insertReviews();
+        courseRatingService.rebuildAll();
+        teacherStatsService.rebuildAll();
+
+        log.info("压测数据生成完成：教师 {}，学生 {}，课程 {}，订单 {}，评价 {}，耗时 {} ms",
+                teacherIds.size(), studentIds.size(), courseRows.size(), orderCount, reviewCount,
+                System.currentTimeMillis() - start);
+    }
+
+    private List<Long> insertUsers(String prefix, int count, UserRole role, String passwordHash, String phonePrefix) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String username = prefix + i;
+            // 教师姓名与用户名相同，压测脚本根据课程的teacherName登录对应的教师账号
+            String realName = role == UserRole.TEACHER ? username : "学生" + i;
+            rows.add(new Object[]{username, passwordHash, realName, username + "@loadtest.local",
+                    phonePrefix + String.format("%08d", i), role.name(), ts(now), ts(now)});
+        }
+        batchInsert("INSERT INTO users (username, password, real_name, email, phone, role, create_time, update_time) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE username LIKE ? ORDER BY id",
+                Long.class, prefix + "%");
+    }
+
+    private void insertTeachers(List<Long> teacherIds) {
+        List<Object[]> rows = new ArrayList<>(teacherIds.size());
+        List<String> subjects = new ArrayList<>(teacherIds.size());
+        for (Long userId : teacherIds) {
+            String teacherSubjects = pickSubjects();
+            subjects.add(teacherSubjects);
+            rows.add(new Object[]{userId, "硕士", "教育学", teacherSubjects, random.nextInt(20), TeacherStatus.ACTIVE.getValue(), ts(now), ts(now)});
+        }
+        batchInsert("INSERT INTO teachers (user_id, education, major, subjects, experience, status, create_time, update_time) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT t.id FROM teachers t JOIN users u ON u.id = t.user_id WHERE u.username LIKE ? ORDER BY t.user_id",
+                Long.class, TEACHER_PREFIX + "%");
+        List<Object[]> subjectRows = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            for (String subject : subjects.get(i).split(",")) {
+                subjectRows.add(new Object[]{ids.get(i), subject});
+            }
+        }
+        batchInsert("INSERT INTO teacher_subjects (teacher_id, subject) VALUES (?, ?)", subjectRows);
+    }
+
+    /**
+     * 插入课程，返回每门课程的(id, 价格, 教师ID)
+     */
+    private List<Object[]> insertCourses(List<Long> teacherIds) {
+        List<Object[]> rows = new ArrayList<>(courses);
+        for (int i = 1; i <= courses; i++) {
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            String title = LEVELS[random.nextInt(LEVELS.length)] + category + TOPICS[random.nextInt(TOPICS.length)] + " 第" + i + "期";
+            LocalDateTime createdAt = now.minusMinutes(random.nextInt(180 * 24 * 60));
+            rows.add(new Object[]{title, category, 30 + random.nextInt(8) * 15, (double) (50 + random.nextInt(450)),
+                    "本课程围绕" + category + "的核心知识点展开，通过例题讲解和课后练习帮助学生巩固提高。",
+                    "", teacherIds.get(random.nextInt(teacherIds.size())), ts(createdAt), ts(createdAt)});
+        }
+        batchInsert("INSERT INTO courses (title, category, duration, price, description, cover, rating, rating_sum, "
+                + "rating_count, rating_star1, rating_star2, rating_star3, rating_star4, rating_star5, student_count, "
+                + "teacher_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0, 0, ?, ?, ?)", rows);
+        return jdbcTemplate.query("SELECT id, price, teacher_id FROM courses ORDER BY id",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getDouble(2), rs.getLong(3)});
+    }
+
+    /**
+     * 插入订单：70%已完成、20%已取消、10%已支付。同一学生同一课程最多一个已支付订单
+     */
+    private int insertOrders(List<Long> studentIds, List<Object[]> courseRows) {
+        Set<String> activeKeys = new HashSet<>();
+        List<Object[]> rows = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Long studentId = studentIds.get(random.nextInt(studentIds.size()));
+            Object[] course = courseRows.get(random.nextInt(courseRows.size()));
+            LocalDateTime createdAt = now.minusMinutes(60 + random.nextInt(90 * 24 * 60));
+            LocalDateTime bookingTime = createdAt.plusDays(1 + random.nextInt(14));
+            int p = random.nextInt(100);
+            OrderStatus status = p < 70 ? OrderStatus.COMPLETED : p < 90 ? OrderStatus.CANCELLED : OrderStatus.PAID;
+            String activeKey = null;
+            if (status == OrderStatus.PAID) {
+                activeKey = studentId + ":" + course[0];
+                if (!activeKeys.add(activeKey)) {
+                    status = OrderStatus.COMPLETED;
+                    activeKey = null;
+                }
+            }
+            LocalDateTime paymentTime = status == OrderStatus.CANCELLED && random.nextBoolean() ? null : createdAt.plusMinutes(5);
+            rows.add(new Object[]{course[0], studentId, course[1], status.getValue(), ts(bookingTime), ts(paymentTime),
+                    status == OrderStatus.COMPLETED ? ts(bookingTime.plusHours(2)) : null,
+                    status == OrderStatus.CANCELLED ? ts(createdAt.plusHours(1)) : null,
+                    status == OrderStatus.CANCELLED ? "时间冲突" : null,
+                    activeKey, ts(createdAt), ts(createdAt)});
+        }
+        batchInsert("INSERT INTO orders (course_id, student_id, amount, status, booking_time, payment_time, "
+                + "completion_time, cancellation_time, cancellation_reason, active_key, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        return rows.size();
+    }
+
+    /**
+     * 根据订单算出选课人数，此时还没有请求，不存在尚未写入的选课人数增量
+     */
+    private void updateStudentCounts() {
+        transactionTemplate.execute(status -> jdbcTemplate.update(
+                "UPDATE courses c SET student_count = (SELECT COUNT(*) FROM orders o "
+                        + "WHERE o.course_id = c.id AND o.status IN (?, ?))",
+                OrderStatus.PAID.getValue(), OrderStatus.COMPLETED.getValue()));
+    }
+
+    /**
+     * 为一部分已完成订单插入评价，评分偏向高分
+     */
+    private int insertReviews() {
+        List<Object[]> completed = jdbcTemplate.query(
+                "SELECT id, course_id, student_id, completion_time FROM orders WHERE status = ? ORDER BY id",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getTimestamp(4)},
+                OrderStatus.COMPLETED.getValue());
+        List<Object[]> rows = new ArrayList<>();
+        for (Object[] order : completed) {
+            if (random.nextDouble() >= reviewRatio) {
+                continue;
+            }
+            // 1-5分，步长0.5，取两次随机数中较小的扣分使分布偏向高分
+            double rating = 5.0 - 0.5 * Math.min(random.nextInt(9), random.nextInt(9));
+            LocalDateTime createdAt = ((Timestamp) order[3]).toLocalDateTime().plusDays(1);
+            rows.add(new Object[]{order[1], order[2], order[0], rating, REVIEWS[random.nextInt(REVIEWS.length)],
+                    ts(createdAt), ts(createdAt)});
+        }
+        batchInsert("INSERT INTO reviews (course_id, student_id, order_id, rating, content, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        return rows.size();
+    }
+
+    private String pickSubjects() {
+        int count = 1 + random.nextInt(3);
+        Set<String> subjects = new LinkedHashSet<>();
+        while (subjects.size() < count) {
+            subjects.add(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        }
+        return String.join(",", subjects);
+    }
+
+    // 按batch-size分批插入，每批一个事务
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(sql, batch));
+        }
+    }
+
+    private static Timestamp ts(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+}
@@ -0,0 +1,137 @@
+package com.tutor.service;
+
+import com.tutor.exception.ResourceNotFoundException;
+import com.tutor.utils.BlobStore;
+import com.tutor.utils.FileTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * 课程封面等公开图片的存储服务
+ * 数据库中只保存图片内容的SHA-256哈希，图片通过 /api/media/{hash} 访问。
+ * 只接受PNG、JPEG、GIF、WEBP图片，类型按文件头识别后与内容一起保存，访问时按保存的类型返回
+ */
+@Service
+public class MediaService {
+
+    private static final String MEDIA_PATH = "/api/media/";
+    private static final String TYPE_ATTRIBUTE = "type";
+
+    @Autowired
+    @Qualifier("mediaBlobStore")
+    private BlobStore mediaBlobStore;
+
+    @Value("${storage.media-base-url:}")
+    private String mediaBaseUrl;
+
+    @Value("${storage.cover-max-size:5242880}")
+    private long coverMaxSize;
+
+    /**
+     * 将前端提交的封面转换为哈希
+     * 支持Base64 Data URL（新上传）、已有的媒体URL或哈希（编辑时原样提交）
+     */
+    public String resolveImage(String image) {
+        if (image == null) {
+            return null;
+        }
+        if (image.startsWith("data:")) {
+            return storeDataUrl(image);
+        }
+        String hash = image.contains(MEDIA_PATH)
+                ? image.substring(image.lastIndexOf('/') + 1)
+                : image;
+        if (!mediaBlobStore.exists(hash)) {
+            throw new IllegalArgumentException("无效的图片地址");
+        }
+        return hash;
+    }
+
+    /**
+     * 保存Base64 Data URL格式的图片，返回内容哈希
+     * 图片类型按解码后的文件头识别，不是允许的图片格式时抛出IllegalArgumentException
+     */
+    public String storeDataUrl(String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        if (!dataUrl.startsWith("data:") || comma < 0) {
+            throw new IllegalArgumentException("图片格式不正确");
+        }
+        byte[] bytes = Base64.getMimeDecoder().decode(dataUrl.substring(comma + 1));
+        String contentType = FileTypes.detect(bytes);
+        if (contentType == null || !FileTypes.IMAGE_TYPES.contains(contentType)) {
+            throw new IllegalArgumentException("只支持PNG、JPEG、GIF、WEBP格式的图片");
+        }
+        try {
+            String hash = mediaBlobStore.put(new ByteArrayInputStream(bytes), coverMaxSize);
+            mediaBlobStore.writeAttribute(hash, TYPE_ATTRIBUTE, contentType);
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存图片失败", e);
+        }
+    }
+
+    /**
+     * 将存储的哈希转换为可访问的URL，非哈希的历史数据原样返回
+     */
+    public String toUrl(String hash) {
+        if (!BlobStore.isHash(hash)) {
+            return hash;
+        }
+        return publicUrl(MEDIA_PATH + hash);
+    }
+    
+    /**
+     * 为站内路径加上对外访问的地址前缀
+     */
+    public String publicUrl(String path) {
+        return baseUrl() + path;
+    }
+
+    public InputStream open(String hash) throws IOException {
+        if (!mediaBlobStore.exists(hash)) {
+            throw new ResourceNotFoundException("Media not found with id: " + hash);
+        }
+        return mediaBlobStore.open(hash);
+    }
+
+    /**
+     * 图片的内容类型，没有保存类型的历史文件按文件头识别；不是允许的图片格式时返回null
+     */
+    public MediaType getImageType(String hash) throws IOException {
+        String contentType = mediaBlobStore.readAttribute(hash, TYPE_ATTRIBUTE);
+        if (contentType == null) {
+            try (InputStream in = new BufferedInputStream(mediaBlobStore.open(hash))) {
+                contentType = FileTypes.detect(in);
+            }
+        }
+        return contentType != null && FileTypes.IMAGE_TYPES.contains(contentType)
+                ? MediaType.parseMediaType(contentType)
+                : null;
+    }
+
+    public long size(String hash) throws IOException {
+        return mediaBlobStore.size(hash);
+    }
+
+    private String baseUrl() {
+        if (!mediaBaseUrl.isEmpty()) {
+            return mediaBaseUrl;
+        }
+        if (RequestContextHolder.getRequestAttributes() != null) {
+            return ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
+        }
+        return "";
+    }
+}
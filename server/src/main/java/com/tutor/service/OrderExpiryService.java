@@ -0,0 +1,180 @@
+package com.tutor.service;
+
+import com.tutor.entity.OrderStatus;
+import com.tutor.repository.OrderRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 待支付订单过期服务
+ * 定期取消创建超过order.expiry.ttl-minutes仍未支付的订单：按(status, created_at)索引取出一批订单ID，
+ * 每批用一条UPDATE取消并清空activeKey，每批一个事务，单次运行最多处理max-batches批。
+ * 运行前获取scheduler_locks中的租约，多实例部署时同一时刻只有一个实例在处理。
+ * 运行次数和取消的订单数同时以tutor.order.expiry.*导出
+ */
+@Service
+public class OrderExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExpiryService.class);
+
+    private static final String LOCK_NAME = "order-expiry";
+    public static final String EXPIRY_REASON = "超时未支付，系统自动取消";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.expiry.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${order.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.expiry.max-batches:50}")
+    private int maxBatches;
+
+    @Value("${order.expiry.lease-seconds:120}")
+    private long leaseSeconds;
+
+    // 运行指标，进程启动以来的累计值
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong skippedRuns = new AtomicLong(); // 租约由其他实例持有而跳过
+    private final AtomicLong failedRuns = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong expiredOrders = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile int lastRunExpired;
+
+    @Scheduled(fixedDelayString = "${order.expiry.interval-ms:60000}",
+            initialDelayString = "${order.expiry.interval-ms:60000}")
+    public void expirePendingOrders() {
+        if (!enabled) {
+            return;
+        }
+        Duration lease = Duration.ofSeconds(leaseSeconds);
+        if (!schedulerLockService.tryAcquire(LOCK_NAME, lease)) {
+            skippedRuns.incrementAndGet();
+            return;
+        }
+        runs.incrementAndGet();
+        long start = System.currentTimeMillis();
+        int expired = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+            for (int i = 0; i < maxBatches; i++) {
+                Integer count = transactionTemplate.execute(status -> expireBatch(cutoff));
+                expired += count;
+                if (count < batchSize) {
+                    break;
+                }
+                // 每批之后续期，续期失败说明租约已过期并被其他实例接管
+                if (!schedulerLockService.tryAcquire(LOCK_NAME, lease)) {
+                    log.warn("订单过期任务的租约已被其他实例接管，停止本次处理");
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            failedRuns.incrementAndGet();
+            log.error("取消过期订单失败", e);
+        } finally {
+            schedulerLockService.release(LOCK_NAME);
+            lastRunAt = LocalDateTime.now();
+            lastRunMillis = System.currentTimeMillis() - start;
+            lastRunExpired = expired;
+        }
+        if (expired > 0) {
+            log.info("已取消 {} 个超时未支付的订单，耗时 {} ms", expired, lastRunMillis);
+        }
+    }
+
+    /**
+     * 取消一批过期订单，返回本批取出的订单数
+     */
+    private int expireBatch(LocalDateTime cutoff) {
+        String pending = OrderStatus.PENDING.getValue();
+        String cancelledStatus = OrderStatus.PENDING.transitionTo(OrderStatus.CANCELLED).getValue();
+        List<Long> ids = orderRepository.findExpiredPendingIds(pending, cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int cancelled = orderRepository.cancelPending(ids, pending, cancelledStatus, now, EXPIRY_REASON);
+        if (cancelled > 0) {
+            for (Object[] row : orderRepository.countCancelledByTeacher(ids, cancelledStatus, EXPIRY_REASON)) {
+                teacherStatsService.onOrdersExpired((Long) row[0], ((Long) row[1]).intValue());
+            }
+        }
+        batches.incrementAndGet();
+        expiredOrders.addAndGet(cancelled);
+        return ids.size();
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("tutor.order.expiry.runs", runs, AtomicLong::get)
+                .description("取得租约并执行的次数，包括失败的运行")
+                .register(meterRegistry);
+        FunctionCounter.builder("tutor.order.expiry.skipped", skippedRuns, AtomicLong::get)
+                .register(meterRegistry);
+        FunctionCounter.builder("tutor.order.expiry.failures", failedRuns, AtomicLong::get)
+                .register(meterRegistry);
+        FunctionCounter.builder("tutor.order.expiry.orders", expiredOrders, AtomicLong::get)
+                .description("超时取消的订单数")
+                .register(meterRegistry);
+        TimeGauge.builder("tutor.order.expiry.last.duration", this, TimeUnit.MILLISECONDS, service -> service.lastRunMillis)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 运行指标和当前配置
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("ttlMinutes", ttlMinutes);
+        metrics.put("batchSize", batchSize);
+        metrics.put("instance", schedulerLockService.getOwner());
+        metrics.put("runs", runs.get());
+        metrics.put("skippedRuns", skippedRuns.get());
+        metrics.put("failedRuns", failedRuns.get());
+        metrics.put("batches", batches.get());
+        metrics.put("expiredOrders", expiredOrders.get());
+        metrics.put("lastRunAt", lastRunAt);
+        metrics.put("lastRunMillis", lastRunMillis);
+        metrics.put("lastRunExpired", lastRunExpired);
+        return metrics;
+    }
+}
@@ -3,11 +3,12 @@ package com.tutor.service;
 import com.tutor.dto.OrderCreateDTO;
 import com.tutor.dto.OrderDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface OrderService {
     
-    // 创建订单
-    OrderDTO createOrder(OrderCreateDTO orderCreateDTO, Long studentId);
+    // 创建订单，相同幂等键的重复提交返回首次创建的订单
+    OrderDTO createOrder(OrderCreateDTO orderCreateDTO, Long studentId, String idempotencyKey);
     
     // 获取订单详情
     OrderDTO getOrderById(Long id, Long userId);
@@ -15,9 +16,15 @@ public interface OrderService {
     // 获取学生订单列表
     Page<OrderDTO> getStudentOrders(Long studentId, String status, String keyword, int page, int size);
     
+    // 游标分页获取学生订单列表，cursor为空表示第一页
+    Slice<OrderDTO> getStudentOrdersAfter(Long studentId, String status, String keyword, String cursor, int size);
+    
     // 获取教师订单列表
     Page<OrderDTO> getTeacherOrders(Long teacherId, String status, String keyword, int page, int size);
     
+    // 游标分页获取教师订单列表，cursor为空表示第一页
+    Slice<OrderDTO> getTeacherOrdersAfter(Long teacherId, String status, String keyword, String cursor, int size);
+    
     // 支付订单
     OrderDTO payOrder(Long orderId, Long studentId);
     
@@ -0,0 +1,55 @@
+package com.tutor.service;
+
+import com.tutor.repository.QualificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 启动时将qualifications.file_url中以Base64内联保存的历史证书迁移到证书存储
+ * 每条记录在单独的事务中迁移，无法解析或类型不允许的记录记录日志后跳过，不影响启动
+ */
+@Component
+public class QualificationFileMigrationService implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(QualificationFileMigrationService.class);
+
+    @Autowired
+    private QualificationRepository qualificationRepository;
+    
+    @Autowired
+    private CertificateFileService certificateFileService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Override
+    public void run(String... args) {
+        List<Long> qualificationIds = qualificationRepository.findIdsWithInlineFile();
+        if (qualificationIds.isEmpty()) {
+            return;
+        }
+        
+        // 逐条读取文件内容，避免一次性把所有证书加载到内存
+        int migrated = 0;
+        for (Long qualificationId : qualificationIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    String fileUrl = qualificationRepository.findFileUrlById(qualificationId);
+                    CertificateFileService.StoredFile stored = certificateFileService.storeDataUrl(fileUrl);
+                    qualificationRepository.updateStoredFile(qualificationId, stored.getHash(),
+                            stored.getFileSize(), stored.getContentType());
+                });
+                migrated++;
+            } catch (RuntimeException e) {
+                log.warn("资质 {} 的证书文件无法迁移，跳过: {}", qualificationId, e.getMessage());
+            }
+        }
+        log.info("已迁移 {} 个资质证书文件到证书存储", migrated);
+    }
+}
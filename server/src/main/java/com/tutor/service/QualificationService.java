@@ -8,8 +8,16 @@ import com.tutor.repository.QualificationRepository;
 import com.tutor.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.HashMap;
@@ -26,8 +34,30 @@ public class QualificationService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CertificateFileService certificateFileService;
+    
+    @Autowired
+    private MediaService mediaService;
+    
+    @Autowired
+    private CourseDetailCache courseDetailCache;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // 事务回滚后检查文件引用时使用的独立事务
+    private TransactionTemplate requiresNewTemplate;
+    
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
+    @PostConstruct
+    public void init() {
+        requiresNewTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        requiresNewTemplate.setReadOnly(true);
+    }
+    
     /**
      * 获取用户的所有资质证书
      */
@@ -41,6 +71,20 @@ public class QualificationService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * 获取用户已通过审核的资质，只包含展示用的元数据和下载链接
+     */
+    public List<QualificationDTO> getApprovedQualifications(Long userId) {
+        List<QualificationDTO> qualifications = qualificationRepository.findApprovedSummaries(userId);
+        for (QualificationDTO dto : qualifications) {
+            if (dto.getFileHash() != null) {
+                dto.setFileUrl(mediaService.publicUrl(
+                        certificateFileService.signedDownloadPath(dto.getId(), dto.getFileHash())));
+            }
+        }
+        return qualifications;
+    }
+    
     /**
      * 获取用户指定状态的资质证书
      */
@@ -56,9 +100,34 @@ public class QualificationService {
     
     /**
      * 添加资质证书
+     * 文件可以是已完成的分片上传(uploadId)，也兼容旧版的Base64 Data URL
      */
     @Transactional
     public QualificationDTO addQualification(Long userId, QualificationDTO qualificationDTO) {
+        CertificateFileService.StoredFile storedFile = null;
+        if (qualificationDTO.getUploadId() != null) {
+            try {
+                storedFile = certificateFileService.completeUpload(userId, qualificationDTO.getUploadId());
+            } catch (IOException e) {
+                throw new UncheckedIOException("保存文件失败", e);
+            }
+        } else if (qualificationDTO.getFileUrl() != null && qualificationDTO.getFileUrl().startsWith("data:")) {
+            storedFile = certificateFileService.storeDataUrl(qualificationDTO.getFileUrl());
+        }
+        
+        return addQualification(userId, qualificationDTO, storedFile);
+    }
+    
+    /**
+     * 添加资质证书，文件已保存到证书存储
+     */
+    @Transactional
+    public QualificationDTO addQualification(Long userId, QualificationDTO qualificationDTO,
+                                             CertificateFileService.StoredFile storedFile) {
+        if (storedFile != null) {
+            deleteFileOnRollback(storedFile.getHash());
+        }
+        
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
@@ -68,7 +137,14 @@ public class QualificationService {
         qualification.setType(qualificationDTO.getType());
         qualification.setIssuer(qualificationDTO.getIssuer());
         qualification.setDescription(qualificationDTO.getDescription());
-        qualification.setFileUrl(qualificationDTO.getFileUrl());
+        if (storedFile != null) {
+            qualification.setFileHash(storedFile.getHash());
+            qualification.setFileName(storedFile.getFileName());
+            qualification.setFileSize(storedFile.getFileSize());
+            qualification.setContentType(storedFile.getContentType());
+        } else {
+            qualification.setFileUrl(qualificationDTO.getFileUrl());
+        }
         qualification.setStatus("pending"); // 默认状态为待审核
         
         qualification = qualificationRepository.save(qualification);
@@ -76,6 +152,47 @@ public class QualificationService {
         return convertToDTO(qualification);
     }
     
+    /**
+     * 文件在资质记录之前保存，登记失败回滚时删除没有被其他资质引用的文件，避免留下孤立文件
+     */
+    private void deleteFileOnRollback(String hash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    deleteFileIfUnreferenced(hash);
+                }
+            }
+        });
+    }
+    
+    /**
+     * 资质记录删除提交后，删除没有被其他资质引用的文件
+     */
+    private void deleteFileOnCommit(String hash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteFileIfUnreferenced(hash);
+            }
+        });
+    }
+    
+    private void deleteFileIfUnreferenced(String hash) {
+        // 原事务已经结束，查询需要在新事务中执行
+        Boolean referenced = requiresNewTemplate.execute(
+                tx -> qualificationRepository.existsByFileHash(hash));
+        if (!Boolean.TRUE.equals(referenced)) {
+            certificateFileService.delete(hash);
+        }
+    }
+    
     /**
      * 删除资质证书
      */
@@ -95,6 +212,24 @@ public class QualificationService {
         }
         
         qualificationRepository.delete(qualification);
+        if (qualification.getFileHash() != null) {
+            deleteFileOnCommit(qualification.getFileHash());
+        }
+    }
+    
+    /**
+     * 获取资质证书文件，需要提供有效的下载签名
+     */
+    public Qualification getQualificationFile(Long id, long expires, String signature) {
+        Qualification qualification = qualificationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("资质未找到"));
+        
+        if (qualification.getFileHash() == null
+                || !certificateFileService.verifySignature(id, qualification.getFileHash(), expires, signature)) {
+            throw new IllegalArgumentException("下载链接无效或已过期");
+        }
+        
+        return qualification;
     }
     
     /**
@@ -129,6 +264,7 @@ public class QualificationService {
         qualification.setReviewDate(new Date());
         
         Qualification savedQualification = qualificationRepository.save(qualification);
+        courseDetailCache.evictTeacher(qualification.getUser().getId());
         return convertToDTO(savedQualification);
     }
     
@@ -166,7 +302,15 @@ public class QualificationService {
         dto.setType(qualification.getType());
         dto.setIssuer(qualification.getIssuer());
         dto.setDescription(qualification.getDescription());
-        dto.setFileUrl(qualification.getFileUrl());
+        if (qualification.getFileHash() != null) {
+            dto.setFileUrl(mediaService.publicUrl(
+                    certificateFileService.signedDownloadPath(qualification.getId(), qualification.getFileHash())));
+        } else {
+            dto.setFileUrl(qualification.getFileUrl());
+        }
+        dto.setFileName(qualification.getFileName());
+        dto.setFileSize(qualification.getFileSize());
+        dto.setContentType(qualification.getContentType());
         dto.setStatus(qualification.getStatus());
         dto.setComment(qualification.getComment());
         dto.setUploadTime(qualification.getUploadTime().format(formatter));
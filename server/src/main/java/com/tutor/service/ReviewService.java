@@ -3,6 +3,10 @@ package com.tutor.service;
 import com.tutor.dto.ReviewCreateDTO;
 import com.tutor.dto.ReviewDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Map;
 
 public interface ReviewService {
     
@@ -15,6 +19,9 @@ public interface ReviewService {
     // 获取课程评价列表
     Page<ReviewDTO> getCourseReviews(Long courseId, int page, int size);
     
+    // 游标分页获取课程评价列表，cursor为空表示第一页
+    Slice<ReviewDTO> getCourseReviewsAfter(Long courseId, String cursor, int size);
+    
     // 获取学生提交的评价列表
     Page<ReviewDTO> getStudentReviews(Long studentId, int page, int size);
     
@@ -24,6 +31,9 @@ public interface ReviewService {
     // 获取订单评价
     ReviewDTO getOrderReview(Long orderId);
     
+    // 批量获取订单评价，返回以订单ID为键的映射，没有评价的订单不在结果中
+    Map<Long, ReviewDTO> getOrderReviews(Collection<Long> orderIds);
+    
     // 检查订单是否已评价
     boolean hasReview(Long orderId);
 
@@ -0,0 +1,53 @@
+package com.tutor.service;
+
+import com.tutor.repository.SchedulerLockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 定时任务租约服务
+ * 多实例部署时，任务执行前先获取scheduler_locks中的租约，同一任务同一时刻只在一个实例上执行；
+ * 实例异常退出时租约到期后由其他实例接管。到期时间按应用服务器时钟计算，租约时长需明显大于实例间的时钟偏差
+ */
+@Service
+public class SchedulerLockService {
+
+    // 实例标识：进程号@主机名，加随机后缀区分同一主机上重启后的进程
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + ":"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    /**
+     * 获取或续期租约，租约由其他实例持有且未到期时返回false
+     */
+    @Transactional
+    public boolean tryAcquire(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        if (schedulerLockRepository.tryAcquire(name, owner, now, now.plus(lease)) == 1) {
+            return true;
+        }
+        // 任务第一次运行时还没有租约行
+        schedulerLockRepository.ensureRow(name, now);
+        return schedulerLockRepository.tryAcquire(name, owner, now, now.plus(lease)) == 1;
+    }
+
+    /**
+     * 提前释放本实例持有的租约
+     */
+    @Transactional
+    public void release(String name) {
+        schedulerLockRepository.release(name, owner, LocalDateTime.now());
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
@@ -0,0 +1,160 @@
+package com.tutor.service;
+
+import com.tutor.utils.SqlStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口汇总每个请求的SQL统计，并检查疑似的N+1查询
+ * 同一条SQL在一个请求中执行达到sql-stats.n-plus-one-threshold次时记为疑似N+1，
+ * 记录接口和重复的SQL；同一接口的警告日志按warn-interval-ms限流，计数不受影响。
+ * 各接口的统计同时注册为Micrometer指标，标签endpoint为接口：tutor.sql.statements（SQL条数）、tutor.sql.rows（读取行数）、
+ * tutor.sql.n-plus-one（疑似N+1的请求数）和计时器tutor.sql.time（每个请求的数据库耗时），随Prometheus端点导出。
+ * reset只清空管理接口的汇总，已导出的指标继续累计
+ */
+@Service
+public class SqlStatsRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsRegistry.class);
+
+    @Value("${sql-stats.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    @Value("${sql-stats.warn-interval-ms:60000}")
+    private long warnIntervalMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    // 各接口的指标，不随reset清空
+    private final Map<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, SqlStats stats) {
+        EndpointStats endpointStats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        endpointStats.add(stats);
+        EndpointMeters endpointMeters = meters.computeIfAbsent(endpoint, this::registerMeters);
+        endpointMeters.add(stats);
+
+        Map.Entry<String, Integer> repeated = stats.mostRepeated();
+        if (repeated == null || repeated.getValue() < nPlusOneThreshold) {
+            return;
+        }
+        endpointStats.suspectedNPlusOne.increment();
+        endpointMeters.nPlusOne.increment();
+        endpointStats.lastRepeatedSql = repeated.getKey();
+        long now = System.currentTimeMillis();
+        long last = endpointStats.lastWarnAt.get();
+        if (now - last >= warnIntervalMs && endpointStats.lastWarnAt.compareAndSet(last, now)) {
+            log.warn("疑似N+1查询：{} 的一次请求中同一条SQL执行了 {} 次（共 {} 条SQL）：{}",
+                    endpoint, repeated.getValue(), stats.getStatements(), repeated.getKey());
+        }
+    }
+
+    /**
+     * 各接口的累计统计，按SQL总条数从多到少排列
+     */
+    public List<Map<String, Object>> getMetrics() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        endpoints.forEach((endpoint, stats) -> {
+            long requests = stats.requests.sum();
+            if (requests == 0) {
+                return;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("endpoint", endpoint);
+            item.put("requests", requests);
+            item.put("statements", stats.statements.sum());
+            item.put("statementsPerRequest", (double) stats.statements.sum() / requests);
+            item.put("maxStatements", stats.maxStatements.get());
+            item.put("rowsPerRequest", (double) stats.rows.sum() / requests);
+            item.put("dbTimeMsPerRequest", stats.nanos.sum() / 1_000_000.0 / requests);
+            item.put("suspectedNPlusOne", stats.suspectedNPlusOne.sum());
+            item.put("lastRepeatedSql", stats.lastRepeatedSql);
+            result.add(item);
+        });
+        result.sort((a, b) -> Long.compare((Long) b.get("statements"), (Long) a.get("statements")));
+        return result;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private EndpointMeters registerMeters(String endpoint) {
+        return new EndpointMeters(
+                Counter.builder("tutor.sql.statements")
+                        .description("接口执行的SQL条数")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry),
+                Counter.builder("tutor.sql.rows")
+                        .description("接口读取的结果行数")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry),
+                Counter.builder("tutor.sql.n-plus-one")
+                        .description("接口疑似N+1查询的请求数")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry),
+                Timer.builder("tutor.sql.time")
+                        .description("接口每个请求的数据库耗时")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry));
+    }
+
+    private static class EndpointMeters {
+
+        private final Counter statements;
+        private final Counter rows;
+        private final Counter nPlusOne;
+        private final Timer time;
+
+        private EndpointMeters(Counter statements, Counter rows, Counter nPlusOne, Timer time) {
+            this.statements = statements;
+            this.rows = rows;
+            this.nPlusOne = nPlusOne;
+            this.time = time;
+        }
+
+        private void add(SqlStats stats) {
+            statements.increment(stats.getStatements());
+            rows.increment(stats.getRows());
+            time.record(stats.getNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static class EndpointStats {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder suspectedNPlusOne = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+        private final AtomicLong lastWarnAt = new AtomicLong();
+        private volatile String lastRepeatedSql;
+
+        private void add(SqlStats stats) {
+            requests.increment();
+            statements.add(stats.getStatements());
+            rows.add(stats.getRows());
+            nanos.add(stats.getNanos());
+            maxStatements.accumulateAndGet(stats.getStatements(), Math::max);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.tutor.service;
 
+import com.tutor.config.CacheConfig;
 import com.tutor.dto.QualificationDTO;
 import com.tutor.dto.TeacherDTO;
 import com.tutor.dto.TeacherQualificationsDTO;
@@ -11,7 +12,18 @@ import com.tutor.repository.QualificationRepository;
 import com.tutor.repository.TeacherProfileRepository;
 import com.tutor.repository.TeacherRepository;
 import com.tutor.repository.UserRepository;
+import com.tutor.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,27 +55,122 @@ public class TeacherService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private UserStatusCache userStatusCache;
+    
+    @Autowired
+    private TeacherSubjectService teacherSubjectService;
+    
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+    
+    @Autowired
+    private CourseDetailCache courseDetailCache;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private static final int MAX_PAGE_SIZE = 100;
+    
     /**
      * 获取所有教师列表
      */
     public List<TeacherDTO> getAllTeachers() {
-        return teacherRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return withSubjects(teacherRepository.findDirectory(null, null, Pageable.unpaged())).getContent();
     }
     
     /**
-     * 根据条件筛选教师列表
+     * 根据条件筛选教师列表，多个科目时matchAll表示需要同时教授所有科目，否则教授任一科目即可
      */
-    public List<TeacherDTO> getTeachersByFilters(String name, String subject, String status) {
-        return teacherRepository.findByFilters(name, subject, status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<TeacherDTO> getTeachersByFilters(String name, List<String> subjects, boolean matchAll, String status) {
+        return findDirectory(name, subjects, matchAll, status, Pageable.unpaged()).getContent();
+    }
+    
+    /**
+     * 分页获取教师目录，sort可选id、experience、rating、courseCount
+     */
+    public Page<TeacherDTO> getTeacherDirectory(String name, List<String> subjects, boolean matchAll, String status,
+                                                String sort, String direction, int page, int size) {
+        checkPageSize(size);
+        return findDirectory(name, subjects, matchAll, status, PageRequest.of(page, size, directorySort(sort, direction)));
+    }
+    
+    /**
+     * 按游标获取下一页教师目录，游标分页只支持按教师ID排序
+     */
+    public Slice<TeacherDTO> getTeacherDirectoryAfter(String name, List<String> subjects, boolean matchAll, String status,
+                                                      String sort, String cursor, int size) {
+        checkPageSize(size);
+        if (sort != null && !"id".equals(sort)) {
+            throw new IllegalArgumentException("游标分页只支持按id排序");
+        }
+        Long afterId = PageCursor.decode(cursor, PageCursor.Kind.TEACHERS).getId();
+        Pageable pageable = PageRequest.of(0, size, Sort.by("id"));
+        List<String> wanted = TeacherSubjectService.normalize(subjects);
+        return withSubjects(wanted.isEmpty()
+                ? teacherRepository.findDirectoryAfter(name, status, afterId, pageable)
+                : teacherRepository.findDirectoryBySubjectsAfter(name, status, wanted,
+                        matchAll ? wanted.size() : 1, afterId, pageable));
+    }
+    
+    private Page<TeacherDTO> findDirectory(String name, List<String> subjects, boolean matchAll, String status,
+                                           Pageable pageable) {
+        List<String> wanted = TeacherSubjectService.normalize(subjects);
+        return withSubjects(wanted.isEmpty()
+                ? teacherRepository.findDirectory(name, status, pageable)
+                : teacherRepository.findDirectoryBySubjects(name, status, wanted,
+                        matchAll ? wanted.size() : 1, pageable));
+    }
+    
+    // 目录查询不读取TEXT类型的科目字段，按本页教师ID一次读取后填入
+    private <T extends Slice<TeacherDTO>> T withSubjects(T teachers) {
+        if (!teachers.hasContent()) {
+            return teachers;
+        }
+        Map<Long, TeacherDTO> byId = new HashMap<>();
+        for (TeacherDTO dto : teachers) {
+            byId.put(dto.getId(), dto);
+        }
+        for (Object[] row : teacherRepository.findSubjectsByIds(byId.keySet())) {
+            String value = (String) row[1];
+            if (value != null && !value.isEmpty()) {
+                byId.get((Long) row[0]).setSubjects(Arrays.asList(value.split(",")));
+            }
+        }
+        return teachers;
+    }
+    
+    // 聚合字段的排序直接引用目录查询中的表达式，同值时按教师ID排序保证分页稳定
+    private Sort directorySort(String sort, String direction) {
+        String key = sort != null ? sort : "id";
+        Sort.Direction dir = direction != null
+                ? Sort.Direction.fromOptionalString(direction)
+                        .orElseThrow(() -> new IllegalArgumentException("无效的排序方向: " + direction))
+                : ("id".equals(key) ? Sort.Direction.ASC : Sort.Direction.DESC);
+        switch (key) {
+            case "id":
+                return Sort.by(dir, "id");
+            case "experience":
+                return Sort.by(dir, "experience").and(Sort.by("id"));
+            case "rating":
+                return JpaSort.unsafe(dir, "SUM(c.ratingSum) / NULLIF(SUM(c.ratingCount), 0)").and(Sort.by("id"));
+            case "courseCount":
+                return JpaSort.unsafe(dir, "COUNT(c.id)").and(Sort.by("id"));
+            default:
+                throw new IllegalArgumentException("不支持的排序字段: " + sort);
+        }
+    }
+    
+    private void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("每页数量需在1到" + MAX_PAGE_SIZE + "之间");
+        }
     }
     
     /**
      * 获取单个教师信息
      */
+    @Cacheable(cacheNames = CacheConfig.TEACHERS, key = "#id")
     public TeacherDTO getTeacherById(Long id) {
         Teacher teacher = teacherRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("教师未找到"));
@@ -102,10 +209,12 @@ public class TeacherService {
         teacher.setUser(user);
         teacher.setEducation(teacherDTO.getEducation());
         teacher.setExperience(teacherDTO.getExperience());
-        teacher.setSubjects(String.join(",", teacherDTO.getSubjects()));
+        List<String> subjects = TeacherSubjectService.normalize(teacherDTO.getSubjects());
+        teacher.setSubjects(String.join(",", subjects));
         teacher.setStatus(teacherDTO.getStatus());
         
         teacher = teacherRepository.save(teacher);
+        teacherSubjectService.replaceSubjects(teacher, subjects);
         
         return convertToDTO(teacher);
     }
@@ -145,10 +254,13 @@ public class TeacherService {
         
         teacher.setEducation(teacherDTO.getEducation());
         teacher.setExperience(teacherDTO.getExperience());
-        teacher.setSubjects(String.join(",", teacherDTO.getSubjects()));
+        List<String> subjects = TeacherSubjectService.normalize(teacherDTO.getSubjects());
+        teacher.setSubjects(String.join(",", subjects));
         teacher.setStatus(teacherDTO.getStatus());
         
         teacher = teacherRepository.save(teacher);
+        teacherSubjectService.replaceSubjects(teacher, subjects);
+        evictTeacherCaches(user);
         
         return convertToDTO(teacher);
     }
@@ -157,6 +269,7 @@ public class TeacherService {
      * 删除教师
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TEACHERS, key = "#id")
     public void deleteTeacher(Long id) {
         Teacher teacher = teacherRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("未找到该教师信息"));
@@ -176,11 +289,14 @@ public class TeacherService {
             // 3. 删除教师资质 (qualifications)
             qualificationRepository.deleteByUser(user);
             
-            // 4. 删除教师记录
+            // 4. 删除教师科目索引、统计行和教师记录
+            teacherSubjectService.deleteSubjects(teacher);
+            teacherStatsService.deleteStats(user.getId());
             teacherRepository.delete(teacher);
             
             // 5. 最后删除用户记录
             userRepository.delete(user);
+            userStatusCache.evict(user.getId());
         } catch (Exception e) {
             if (e instanceof RuntimeException) {
                 throw e;
@@ -189,6 +305,17 @@ public class TeacherService {
         }
     }
     
+    /**
+     * 教师的姓名和联系方式同时出现在教师信息、课程信息和课程详情中，变更后一并移除这些缓存
+     */
+    public void evictTeacherCaches(User user) {
+        teacherRepository.findByUser(user)
+                .ifPresent(teacher -> cacheManager.getCache(CacheConfig.TEACHERS).evict(teacher.getId()));
+        Cache courses = cacheManager.getCache(CacheConfig.COURSES);
+        courseRepository.findIdsByTeacher(user).forEach(courses::evict);
+        courseDetailCache.evictTeacher(user.getId());
+    }
+    
     /**
      * 获取教师资质信息
      */
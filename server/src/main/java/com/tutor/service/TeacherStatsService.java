@@ -0,0 +1,420 @@
+package com.tutor.service;
+
+import com.tutor.dto.TeacherStatsDTO;
+import com.tutor.entity.OrderStatus;
+import com.tutor.entity.Teacher;
+import com.tutor.entity.TeacherStatus;
+import com.tutor.entity.UserRole;
+import com.tutor.repository.TeacherRepository;
+import com.tutor.repository.TeacherStatsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 教师统计服务
+ * 订单完成、取消以及评价增删改的事务提交后，把评分总和、评价数、完成/取消订单数和收入的增量按教师合并在内存中，
+ * 后台每隔teacher-stats.flush-interval-ms对每位有增量的教师在一个小事务中累加写入，
+ * 订单和评价事务不再锁定教师的统计行，同一教师的完成订单和评价不会因统计行互相等待。
+ * 写入失败的增量放回下次重试，教师已被删除时丢弃。排行榜直接读取统计表。
+ * 进程异常退出丢失的增量由定期核对修正：按用户ID分段用不加锁的查询读取订单和评价明细的实际统计与统计行，
+ * 偏差减去本实例尚未写入的增量后，同一教师连续两次核对的偏差相同才在单独的小事务中按偏差修正。
+ * 尚未写入的教师数以tutor.teacher.stats.pending导出
+ */
+@Service
+public class TeacherStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TeacherStatsService.class);
+
+    private static final int MAX_RANKING_SIZE = 50;
+
+    private static final String ACTUAL_SQL = "SELECT u.id, s.teacher_id, s.rating_sum, s.rating_count, " +
+            "s.completed_orders, s.cancelled_orders, s.revenue, " +
+            "(SELECT COALESCE(SUM(r.rating), 0) FROM reviews r JOIN courses c ON r.course_id = c.id " +
+            "WHERE c.teacher_id = u.id), " +
+            "(SELECT COUNT(*) FROM reviews r JOIN courses c ON r.course_id = c.id WHERE c.teacher_id = u.id), " +
+            "(SELECT COUNT(*) FROM orders o JOIN courses c ON o.course_id = c.id " +
+            "WHERE c.teacher_id = u.id AND o.status = ?), " +
+            "(SELECT COUNT(*) FROM orders o JOIN courses c ON o.course_id = c.id " +
+            "WHERE c.teacher_id = u.id AND o.status = ?), " +
+            "(SELECT COALESCE(SUM(o.amount), 0) FROM orders o JOIN courses c ON o.course_id = c.id " +
+            "WHERE c.teacher_id = u.id AND o.status = ?) " +
+            "FROM users u LEFT JOIN teacher_stats s ON s.teacher_id = u.id " +
+            "WHERE u.role = ? AND u.id BETWEEN ? AND ?";
+
+    private static final String RECONCILE_LOCK = "teacher-stats-reconcile";
+    private static final Duration RECONCILE_LEASE = Duration.ofMinutes(5);
+
+    // 核对时每段读取的用户ID范围
+    private static final int RECONCILE_CHUNK = 1000;
+
+    @Autowired
+    private TeacherStatsRepository teacherStatsRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Long, StatsDelta> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 上次核对发现的偏差，只在核对任务中访问
+    private Map<Long, StatsDelta> suspectedDrift = Collections.emptyMap();
+
+    /**
+     * 订单完成，teacherId为教师的用户ID，在当前事务提交后计入
+     */
+    public void onOrderCompleted(Long teacherId, double amount) {
+        submit(teacherId, new StatsDelta(0, 0, 1, 0, amount));
+    }
+
+    /**
+     * 订单取消
+     */
+    public void onOrderCancelled(Long teacherId) {
+        submit(teacherId, new StatsDelta(0, 0, 0, 1, 0));
+    }
+
+    /**
+     * 待支付订单超时被批量取消，count为该教师被取消的订单数
+     */
+    public void onOrdersExpired(Long teacherId, int count) {
+        submit(teacherId, new StatsDelta(0, 0, 0, count, 0));
+    }
+
+    /**
+     * 新增评价
+     */
+    public void onReviewCreated(Long teacherId, double rating) {
+        submit(teacherId, new StatsDelta(rating, 1, 0, 0, 0));
+    }
+
+    /**
+     * 修改评价的评分
+     */
+    public void onReviewUpdated(Long teacherId, double oldRating, double newRating) {
+        submit(teacherId, new StatsDelta(newRating - oldRating, 0, 0, 0, 0));
+    }
+
+    /**
+     * 删除评价
+     */
+    public void onReviewDeleted(Long teacherId, double rating) {
+        submit(teacherId, new StatsDelta(-rating, -1, 0, 0, 0));
+    }
+
+    /**
+     * 把累计的增量写入统计表，每位教师一个事务
+     */
+    @Scheduled(fixedDelayString = "${teacher-stats.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            for (Long teacherId : pending.keySet()) {
+                StatsDelta delta = pending.remove(teacherId);
+                if (delta == null || delta.isZero()) {
+                    continue;
+                }
+                try {
+                    apply(teacherId, delta);
+                } catch (DataIntegrityViolationException e) {
+                    // 统计行引用的用户已被删除
+                    log.warn("教师 {} 已不存在，丢弃统计增量 {}", teacherId, delta);
+                } catch (RuntimeException e) {
+                    pending.merge(teacherId, delta, StatsDelta::plus);
+                    log.error("教师 {} 的统计写入失败，稍后重试", teacherId, e);
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 教师排行榜，sort可选rating（按平均分，至少有minReviews条评价）或completedOrders（按完成订单数）
+     * 排行榜公开访问，不返回收入和取消数据
+     */
+    public List<TeacherStatsDTO> getRanking(String sort, int minReviews, int limit) {
+        if (limit < 1 || limit > MAX_RANKING_SIZE) {
+            throw new IllegalArgumentException("排行榜数量需在1到" + MAX_RANKING_SIZE + "之间");
+        }
+        Sort order;
+        if ("rating".equals(sort)) {
+            order = Sort.by(Sort.Direction.DESC, "rating", "ratingCount");
+        } else if ("completedOrders".equals(sort)) {
+            order = Sort.by(Sort.Direction.DESC, "completedOrders", "rating");
+        } else {
+            throw new IllegalArgumentException("不支持的排序字段: " + sort);
+        }
+        List<TeacherStatsDTO> ranking = teacherStatsRepository.findRanking(TeacherStatus.ACTIVE.getValue(), Math.max(minReviews, 0),
+                PageRequest.of(0, limit, order.and(Sort.by("teacherId"))));
+        ranking.forEach(stats -> {
+            stats.setCancelledOrders(null);
+            stats.setCancellationRate(null);
+            stats.setRevenue(null);
+        });
+        return ranking;
+    }
+
+    /**
+     * 获取单个教师的完整统计，还没有统计数据的教师返回全零
+     */
+    public TeacherStatsDTO getStats(Long teacherId) {
+        return teacherStatsRepository.findByTeacher(teacherId).orElseGet(() -> {
+            Teacher teacher = teacherRepository.findById(teacherId)
+                    .orElseThrow(() -> new RuntimeException("教师未找到"));
+            return new TeacherStatsDTO(teacher.getId(), teacher.getUser().getId(), teacher.getUser().getRealName(),
+                    null, 0, 0, 0, 0.0, null);
+        });
+    }
+
+    /**
+     * 核对教师统计，启动时先记录一次偏差并补齐缺少的统计行，之后定期核对，偏差连续两次相同的教师按偏差修正
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${teacher-stats.reconcile-cron:0 45 * * * *}")
+    public void reconcile() {
+        if (!schedulerLockService.tryAcquire(RECONCILE_LOCK, RECONCILE_LEASE)) {
+            return;
+        }
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+            Map<Long, StatsDelta> drift = new HashMap<>();
+            Set<Long> missing = new TreeSet<>();
+            for (long from = 1; maxId != null && from <= maxId; from += RECONCILE_CHUNK) {
+                readDrift(from, from + RECONCILE_CHUNK - 1, drift, missing);
+            }
+            Map<Long, StatsDelta> confirmed = new TreeMap<>();
+            drift.forEach((teacherId, delta) -> {
+                if (delta.equals(suspectedDrift.get(teacherId))) {
+                    confirmed.put(teacherId, delta);
+                }
+            });
+            confirmed.keySet().forEach(drift::remove);
+            suspectedDrift = drift;
+            // 缺少统计行的教师补一行全零的统计，偏差确认之前不计入
+            missing.removeAll(confirmed.keySet());
+            for (Long teacherId : missing) {
+                apply(teacherId, StatsDelta.ZERO);
+            }
+            confirmed.forEach(this::apply);
+            if (!confirmed.isEmpty()) {
+                log.warn("已修正 {} 位教师的统计数据", confirmed.size());
+                log.debug("教师统计修正: {}", confirmed);
+            }
+        } catch (RuntimeException e) {
+            log.error("核对教师统计失败", e);
+        } finally {
+            schedulerLockService.release(RECONCILE_LOCK);
+        }
+    }
+
+    /**
+     * 根据订单和评价明细全量重建全部教师统计
+     * 重建覆盖统计行，只在没有订单和评价写入、内存中也没有增量时使用（如压测数据生成后），
+     * 运行期间的修正由reconcile完成
+     */
+    @Transactional
+    public void rebuildAll() {
+        int inserted = teacherStatsRepository.insertMissingRows(UserRole.TEACHER.name());
+        int teachers = teacherStatsRepository.rebuildAll(
+                OrderStatus.COMPLETED.getValue(), OrderStatus.CANCELLED.getValue());
+        log.info("已重建 {} 位教师的统计数据，新增 {} 位", teachers, inserted);
+    }
+
+    /**
+     * 删除教师的统计行，teacherId为教师的用户ID，需在删除用户的事务中、删除用户之前调用
+     * 丢弃该教师尚未写入的增量，并在事务结束前暂停写入，避免写入线程在用户删除之前又插入统计行
+     */
+    @Transactional
+    public void deleteStats(Long teacherId) {
+        flushLock.lock();
+        boolean deferred = false;
+        try {
+            pending.remove(teacherId);
+            teacherStatsRepository.deleteByTeacherId(teacherId);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        flushLock.unlock();
+                    }
+                });
+                deferred = true;
+            }
+        } finally {
+            if (!deferred) {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 读取一段用户ID中教师的偏差：明细的实际统计 - 统计行 - 本实例尚未写入的增量，没有统计行的教师记入missing
+     */
+    private void readDrift(long fromId, long toId, Map<Long, StatsDelta> drift, Set<Long> missing) {
+        // 持有写入锁，读取期间本实例的增量不会在内存和数据库之间移动
+        flushLock.lock();
+        try {
+            jdbcTemplate.query(ACTUAL_SQL, rs -> {
+                long teacherId = rs.getLong(1);
+                if (rs.getObject(2) == null) {
+                    missing.add(teacherId);
+                }
+                StatsDelta delta = new StatsDelta(rs.getDouble(8) - rs.getDouble(3), rs.getInt(9) - rs.getInt(4),
+                        rs.getInt(10) - rs.getInt(5), rs.getInt(11) - rs.getInt(6), rs.getDouble(12) - rs.getDouble(7));
+                StatsDelta unflushed = pending.get(teacherId);
+                if (unflushed != null) {
+                    delta = delta.plus(unflushed.negate());
+                }
+                if (!delta.isZero()) {
+                    drift.put(teacherId, delta);
+                }
+            }, OrderStatus.COMPLETED.getValue(), OrderStatus.CANCELLED.getValue(), OrderStatus.COMPLETED.getValue(),
+                    UserRole.TEACHER.name(), fromId, toId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("tutor.teacher.stats.pending", pending, Map::size)
+                .description("统计增量尚未写入数据库的教师数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("应用关闭时仍有 {} 位教师的统计增量未写入，将由之后的核对修正", pending.size());
+        }
+    }
+
+    private void apply(Long teacherId, StatsDelta delta) {
+        transactionTemplate.executeWithoutResult(status -> {
+            teacherStatsRepository.ensureRow(teacherId);
+            teacherStatsRepository.applyDelta(teacherId, delta.ratingSum, delta.ratingCount,
+                    delta.completedOrders, delta.cancelledOrders, delta.revenue);
+        });
+    }
+
+    private void submit(Long teacherId, StatsDelta delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.merge(teacherId, delta, StatsDelta::plus);
+                }
+            });
+        } else {
+            pending.merge(teacherId, delta, StatsDelta::plus);
+        }
+    }
+
+    /**
+     * 一位教师的统计增量，不可变
+     */
+    static final class StatsDelta {
+
+        static final StatsDelta ZERO = new StatsDelta(0, 0, 0, 0, 0);
+
+        // 评分总和和收入按浮点数累加，差值小于此值视为相同
+        private static final double EPSILON = 1e-6;
+
+        private final double ratingSum;
+        private final int ratingCount;
+        private final int completedOrders;
+        private final int cancelledOrders;
+        private final double revenue;
+
+        StatsDelta(double ratingSum, int ratingCount, int completedOrders, int cancelledOrders, double revenue) {
+            this.ratingSum = ratingSum;
+            this.ratingCount = ratingCount;
+            this.completedOrders = completedOrders;
+            this.cancelledOrders = cancelledOrders;
+            this.revenue = revenue;
+        }
+
+        StatsDelta plus(StatsDelta other) {
+            return new StatsDelta(ratingSum + other.ratingSum, ratingCount + other.ratingCount,
+                    completedOrders + other.completedOrders, cancelledOrders + other.cancelledOrders,
+                    revenue + other.revenue);
+        }
+
+        StatsDelta negate() {
+            return new StatsDelta(-ratingSum, -ratingCount, -completedOrders, -cancelledOrders, -revenue);
+        }
+
+        boolean isZero() {
+            return equals(ZERO);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StatsDelta)) {
+                return false;
+            }
+            StatsDelta other = (StatsDelta) o;
+            return Math.abs(ratingSum - other.ratingSum) < EPSILON && ratingCount == other.ratingCount
+                    && completedOrders == other.completedOrders && cancelledOrders == other.cancelledOrders
+                    && Math.abs(revenue - other.revenue) < EPSILON;
+        }
+
+        // 浮点字段只按误差范围比较，不参与哈希
+        @Override
+        public int hashCode() {
+            return Objects.hash(ratingCount, completedOrders, cancelledOrders);
+        }
+
+        @Override
+        public String toString() {
+            return "ratingSum=" + ratingSum + " ratingCount=" + ratingCount + " completed=" + completedOrders
+                    + " cancelled=" + cancelledOrders + " revenue=" + revenue;
+        }
+    }
+}
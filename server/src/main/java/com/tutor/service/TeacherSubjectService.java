@@ -0,0 +1,115 @@
+package com.tutor.service;
+
+import com.tutor.entity.Teacher;
+import com.tutor.entity.TeacherSubject;
+import com.tutor.repository.TeacherRepository;
+import com.tutor.repository.TeacherSubjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 教师科目索引服务
+ * 维护teacher_subjects关系表，与教师表中逗号分隔的subjects字段保持一致
+ */
+@Service
+public class TeacherSubjectService {
+
+    private static final Logger log = LoggerFactory.getLogger(TeacherSubjectService.class);
+
+    private static final int MAX_SUBJECT_LENGTH = 50;
+
+    @Autowired
+    private TeacherSubjectRepository teacherSubjectRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    /**
+     * 规范化科目列表：去掉首尾空白、空项和重复项，保持原有顺序
+     * 唯一约束按数据库排序规则不区分大小写，只有大小写不同的科目视为重复，保留第一次出现的写法
+     */
+    public static List<String> normalize(Collection<String> subjects) {
+        if (subjects == null) {
+            return Collections.emptyList();
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String subject : subjects) {
+            if (subject == null || subject.trim().isEmpty()) {
+                continue;
+            }
+            String trimmed = subject.trim();
+            if (trimmed.length() > MAX_SUBJECT_LENGTH) {
+                throw new IllegalArgumentException("科目名称不能超过" + MAX_SUBJECT_LENGTH + "个字符");
+            }
+            result.putIfAbsent(trimmed.toLowerCase(Locale.ROOT), trimmed);
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * 将教师的科目索引更新为给定列表，只增删有变化的科目
+     */
+    @Transactional
+    public void replaceSubjects(Teacher teacher, Collection<String> subjects) {
+        List<String> wanted = normalize(subjects);
+        List<TeacherSubject> existing = teacherSubjectRepository.findByTeacher(teacher);
+
+        List<TeacherSubject> removed = existing.stream()
+                .filter(s -> !wanted.contains(s.getSubject()))
+                .collect(Collectors.toList());
+        teacherSubjectRepository.deleteAll(removed);
+        // Hibernate默认先执行插入再执行删除，只改了大小写的科目会先插入而违反唯一约束，删除需要先写入数据库
+        if (!removed.isEmpty()) {
+            teacherSubjectRepository.flush();
+        }
+
+        Set<String> current = existing.stream()
+                .map(TeacherSubject::getSubject)
+                .collect(Collectors.toSet());
+        List<TeacherSubject> added = wanted.stream()
+                .filter(subject -> !current.contains(subject))
+                .map(subject -> TeacherSubject.builder().teacher(teacher).subject(subject).build())
+                .collect(Collectors.toList());
+        teacherSubjectRepository.saveAll(added);
+    }
+
+    /**
+     * 删除教师的科目索引
+     */
+    @Transactional
+    public void deleteSubjects(Teacher teacher) {
+        teacherSubjectRepository.deleteByTeacher(teacher);
+    }
+
+    /**
+     * 为尚未建立科目索引的教师补齐索引，返回处理的教师数
+     */
+    @Transactional
+    public int backfill() {
+        List<Teacher> teachers = teacherRepository.findTeachersWithoutSubjects();
+        int count = 0;
+        for (Teacher teacher : teachers) {
+            try {
+                replaceSubjects(teacher, Arrays.asList(teacher.getSubjects().split(",")));
+                count++;
+            } catch (IllegalArgumentException e) {
+                log.warn("教师 {} 的科目无法建立索引: {}", teacher.getId(), e.getMessage());
+            }
+        }
+        return count;
+    }
+}
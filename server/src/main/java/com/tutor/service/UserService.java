@@ -1,15 +1,19 @@
 package com.tutor.service;
 
+import com.tutor.config.CacheConfig;
 import com.tutor.dto.UserDTO;
 import com.tutor.dto.UserProfileDTO;
 import com.tutor.entity.Teacher;
 import com.tutor.entity.TeacherProfile;
+import com.tutor.entity.TeacherStatus;
 import com.tutor.entity.User;
 import com.tutor.entity.UserRole;
 import com.tutor.repository.TeacherProfileRepository;
 import com.tutor.repository.TeacherRepository;
 import com.tutor.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +35,18 @@ public class UserService {
     
     @Autowired
     private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private UserStatusCache userStatusCache;
+    
+    @Autowired
+    private TeacherSubjectService teacherSubjectService;
+    
+    @Autowired
+    private TeacherService teacherService;
+    
+    @Autowired
+    private TeacherStatsService teacherStatsService;
 
     @Transactional
     public User register(UserDTO userDTO) {
@@ -74,9 +90,9 @@ public class UserService {
             teacherProfile.setMajor(userDTO.getMajor());
             
             // 将科目列表转换为逗号分隔的字符串
-            String subjects = "";
-            if (userDTO.getSubjects() != null && !userDTO.getSubjects().isEmpty()) {
-                subjects = String.join(",", userDTO.getSubjects());
+            List<String> subjectList = TeacherSubjectService.normalize(userDTO.getSubjects());
+            String subjects = String.join(",", subjectList);
+            if (!subjectList.isEmpty()) {
                 teacherProfile.setSubjects(subjects);
             }
             
@@ -92,9 +108,10 @@ public class UserService {
             teacher.setMajor(userDTO.getMajor());
             teacher.setExperience(userDTO.getExperience() != null ? userDTO.getExperience() : 0);
             teacher.setSubjects(subjects);
-            teacher.setStatus("active");
+            teacher.setStatus(TeacherStatus.ACTIVE.getValue());
             
             teacherRepository.save(teacher);
+            teacherSubjectService.replaceSubjects(teacher, subjectList);
         }
 
         return savedUser;
@@ -125,6 +142,7 @@ public class UserService {
     /**
      * 获取用户个人资料
      */
+    @Cacheable(cacheNames = CacheConfig.USER_PROFILES, key = "#userId")
     public UserProfileDTO getUserProfile(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
@@ -145,6 +163,7 @@ public class UserService {
      * 更新用户个人资料
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_PROFILES, key = "#userId")
     public UserProfileDTO updateUserProfile(Long userId, UserProfileDTO profileDTO) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
@@ -173,6 +192,9 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        if (updatedUser.getRole() == UserRole.TEACHER) {
+            teacherService.evictTeacherCaches(updatedUser);
+        }
         
         // 返回更新后的用户资料
         profileDTO.setId(updatedUser.getId());
@@ -260,6 +282,7 @@ public class UserService {
      * 管理员更新用户信息
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_PROFILES, key = "#userId")
     public UserProfileDTO updateUserByAdmin(Long userId, Map<String, String> userData) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("未找到该用户"));
@@ -293,6 +316,9 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        if (updatedUser.getRole() == UserRole.TEACHER) {
+            teacherService.evictTeacherCaches(updatedUser);
+        }
         
         return convertToUserProfileDTO(updatedUser);
     }
@@ -301,6 +327,7 @@ public class UserService {
      * 删除用户 (管理员功能)
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_PROFILES, key = "#userId")
     public void deleteUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("未找到该用户"));
@@ -312,7 +339,17 @@ public class UserService {
         
         // TODO: 根据业务需求，可能需要检查用户是否有关联数据，如订单等
         
+        // 教师账户按删除教师的流程处理，一并删除教师资料、资质、科目索引和统计行
+        Optional<Teacher> teacher = teacherRepository.findByUser(user);
+        if (teacher.isPresent()) {
+            teacherService.deleteTeacher(teacher.get().getId());
+            return;
+        }
+        
+        // 教师统计行引用用户ID，角色可能已经改过，不论角色都要删除
+        teacherStatsService.deleteStats(userId);
         userRepository.delete(user);
+        userStatusCache.evict(userId);
     }
     
     /**
@@ -0,0 +1,74 @@
+package com.tutor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tutor.entity.UserRole;
+import com.tutor.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 用户状态缓存，用于令牌吊销检查
+ * 令牌中已包含用户ID和角色，开启检查后才会确认用户仍然存在且角色未变，结果按TTL缓存
+ */
+@Service
+public class UserStatusCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${jwt.revocation-check.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jwt.revocation-check.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${jwt.revocation-check.max-size:10000}")
+    private long maxSize;
+
+    private Cache<Long, Optional<UserRole>> roles;
+
+    @PostConstruct
+    public void init() {
+        roles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * 检查令牌对应的用户是否仍然有效，未开启检查时始终返回true
+     */
+    public boolean isActive(Long userId, String role) {
+        if (!enabled) {
+            return true;
+        }
+        Optional<UserRole> currentRole = roles.get(userId,
+                id -> userRepository.findById(id).map(user -> user.getRole()));
+        return currentRole.isPresent() && currentRole.get().name().equals(role);
+    }
+
+    /**
+     * 用户被删除或角色变更时移除缓存
+     * 在事务中调用时等提交后再移除，否则提交前的并发请求会把旧状态重新读入缓存，直到TTL过期都不会吊销
+     */
+    public void evict(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    roles.invalidate(userId);
+                }
+            });
+        } else {
+            roles.invalidate(userId);
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package com.tutor.service.impl;
 
+import com.tutor.config.CacheConfig;
 import com.tutor.dto.CourseCreateDTO;
 import com.tutor.dto.CourseDTO;
+import com.tutor.dto.CourseDetailDTO;
+import com.tutor.dto.QualificationDTO;
 import com.tutor.entity.Course;
+import com.tutor.entity.Teacher;
 import com.tutor.entity.User;
 import com.tutor.exception.ResourceNotFoundException;
 import com.tutor.repository.CourseRepository;
 import com.tutor.repository.OrderRepository;
 import com.tutor.repository.ReviewRepository;
 import com.tutor.repository.UserRepository;
+import com.tutor.service.CourseDetailCache;
+import com.tutor.service.CourseSearchIndex;
 import com.tutor.service.CourseService;
+import com.tutor.service.MediaService;
+import com.tutor.service.QualificationService;
+import com.tutor.utils.PageCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class CourseServiceImpl implements CourseService {
@@ -34,30 +54,68 @@ public class CourseServiceImpl implements CourseService {
     @Autowired
     private ReviewRepository reviewRepository;
     
+    @Autowired
+    private MediaService mediaService;
+    
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+    
+    @Autowired
+    private QualificationService qualificationService;
+    
+    @Autowired
+    private CourseDetailCache courseDetailCache;
+    
     @Override
     public Page<CourseDTO> getAllCourses(String category, String keyword, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        if (StringUtils.hasText(keyword)) {
+            Page<Long> ids = courseSearchIndex.search(keyword, category, null, pageable);
+            if (ids != null) {
+                return findCoursesInOrder(ids);
+            }
+        }
         return courseRepository.findByFilters(category, keyword, pageable)
                 .map(this::convertToDTO);
     }
     
+    @Override
+    public Slice<CourseDTO> getCoursesAfter(String category, String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor, PageCursor.Kind.COURSES);
+        Pageable pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return courseRepository.findByFiltersAfter(category, after.getCreatedAt(), after.getId(), pageable)
+                .map(this::convertToDTO);
+    }
+    
     @Override
     public Page<CourseDTO> getTeacherCourses(Long teacherId, String category, String keyword, int page, int size) {
         User teacher = userRepository.findById(teacherId)
                 .orElseThrow(() -> new ResourceNotFoundException("Teacher not found with id: " + teacherId));
         
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        if (StringUtils.hasText(keyword)) {
+            Page<Long> ids = courseSearchIndex.search(keyword, category, teacherId, pageable);
+            if (ids != null) {
+                return findCoursesInOrder(ids);
+            }
+        }
         return courseRepository.findByTeacherAndFilters(teacher, category, keyword, pageable)
                 .map(this::convertToDTO);
     }
     
     @Override
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "#id")
     public CourseDTO getCourseById(Long id) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
         return convertToDTO(course);
     }
     
+    @Override
+    public CourseDetailDTO getCourseDetail(Long id) {
+        return courseDetailCache.get(id, this::loadCourseDetail);
+    }
+    
     @Override
     @Transactional
     public CourseDTO createCourse(CourseCreateDTO courseCreateDTO, Long teacherId) {
@@ -70,16 +128,18 @@ public class CourseServiceImpl implements CourseService {
                 .duration(courseCreateDTO.getDuration())
                 .price(courseCreateDTO.getPrice())
                 .description(courseCreateDTO.getDescription())
-                .cover(courseCreateDTO.getCover())
+                .cover(mediaService.resolveImage(courseCreateDTO.getCover()))
                 .teacher(teacher)
                 .build();
         
         Course savedCourse = courseRepository.save(course);
+        courseSearchIndex.index(savedCourse);
         return convertToDTO(savedCourse);
     }
     
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#id")
     public void deleteCourse(Long id, Long teacherId) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
@@ -101,10 +161,13 @@ public class CourseServiceImpl implements CourseService {
         }
         
         courseRepository.deleteById(id);
+        courseSearchIndex.remove(id);
+        courseDetailCache.evict(id);
     }
     
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#id")
     public CourseDTO updateCourse(Long id, CourseCreateDTO courseUpdateDTO, Long teacherId) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
@@ -121,13 +184,56 @@ public class CourseServiceImpl implements CourseService {
         course.setPrice(courseUpdateDTO.getPrice());
         course.setDescription(courseUpdateDTO.getDescription());
         if (courseUpdateDTO.getCover() != null) {
-            course.setCover(courseUpdateDTO.getCover());
+            course.setCover(mediaService.resolveImage(courseUpdateDTO.getCover()));
         }
         
         Course updatedCourse = courseRepository.save(course);
+        courseSearchIndex.index(updatedCourse);
+        courseDetailCache.evict(id);
         return convertToDTO(updatedCourse);
     }
     
+    // 一次查询取课程、教师和教师档案，再取已通过审核的资质元数据
+    private CourseDetailDTO loadCourseDetail(Long id) {
+        List<Object[]> rows = courseRepository.findDetailById(id);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("Course not found with id: " + id);
+        }
+        Course course = (Course) rows.get(0)[0];
+        Teacher teacher = (Teacher) rows.get(0)[1];
+        List<QualificationDTO> qualifications = qualificationService.getApprovedQualifications(course.getTeacher().getId());
+        
+        // 优先使用已通过审核的学历资质，没有时使用教师档案中的学历和专业
+        Map<String, String> teacherInfo = new HashMap<>();
+        teacherInfo.put("education", teacher != null ? teacher.getEducation() : null);
+        teacherInfo.put("major", teacher != null ? teacher.getMajor() : null);
+        qualifications.stream()
+                .filter(q -> "education".equalsIgnoreCase(q.getType()))
+                .findFirst()
+                .ifPresent(q -> {
+                    teacherInfo.put("education", q.getName());
+                    teacherInfo.put("major", q.getDescription());
+                });
+        
+        return new CourseDetailDTO(convertToDTO(course), qualifications, teacherInfo);
+    }
+    
+    // 按搜索结果的顺序加载课程，期间被删除的课程直接跳过
+    private Page<CourseDTO> findCoursesInOrder(Page<Long> ids) {
+        Map<Long, Course> courses = new HashMap<>();
+        for (Course course : courseRepository.findByIdIn(ids.getContent())) {
+            courses.put(course.getId(), course);
+        }
+        List<CourseDTO> content = new ArrayList<>();
+        for (Long id : ids.getContent()) {
+            Course course = courses.get(id);
+            if (course != null) {
+                content.add(convertToDTO(course));
+            }
+        }
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+    
     private CourseDTO convertToDTO(Course course) {
         return CourseDTO.builder()
                 .id(course.getId())
@@ -136,8 +242,11 @@ public class CourseServiceImpl implements CourseService {
                 .duration(course.getDuration())
                 .price(course.getPrice())
                 .description(course.getDescription())
-                .cover(course.getCover())
+                .cover(mediaService.toUrl(course.getCover()))
                 .rating(course.getRating())
+                .ratingCount(course.getRatingCount())
+                .ratingDistribution(Arrays.asList(course.getRatingStar1(), course.getRatingStar2(),
+                        course.getRatingStar3(), course.getRatingStar4(), course.getRatingStar5()))
                 .studentCount(course.getStudentCount())
                 .teacherId(course.getTeacher().getId())
                 .teacherName(course.getTeacher().getRealName())
@@ -1,29 +1,46 @@
 package com.tutor.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.tutor.dto.OrderCreateDTO;
 import com.tutor.dto.OrderDTO;
 import com.tutor.dto.ReviewDTO;
 import com.tutor.entity.Course;
 import com.tutor.entity.Order;
+import com.tutor.entity.OrderStatus;
 import com.tutor.entity.Review;
 import com.tutor.entity.User;
 import com.tutor.exception.ResourceNotFoundException;
 import com.tutor.repository.CourseRepository;
 import com.tutor.repository.OrderRepository;
-import com.tutor.repository.ReviewRepository;
 import com.tutor.repository.UserRepository;
+import com.tutor.service.EnrollmentCounter;
 import com.tutor.service.OrderService;
+import com.tutor.service.MediaService;
 import com.tutor.service.ReviewService;
+import com.tutor.service.TeacherStatsService;
+import com.tutor.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -38,14 +55,55 @@ public class OrderServiceImpl implements OrderService {
     private UserRepository userRepository;
     
     @Autowired
-    private ReviewRepository reviewRepository;
+    private MediaService mediaService;
     
     @Autowired
     private ReviewService reviewService;
+    
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+    
+    @Autowired
+    private EnrollmentCounter enrollmentCounter;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${order.idempotency.ttl-hours:24}")
+    private long idempotencyTtlHours;
+    
+    @Value("${order.idempotency.max-size:10000}")
+    private long idempotencyMaxSize;
+    
+    // 按"学生ID:幂等键"缓存创建结果，重试的请求直接返回，不再访问数据库
+    private Cache<String, OrderDTO> createdOrders;
+    
+    @PostConstruct
+    public void init() {
+        createdOrders = Caffeine.newBuilder()
+                .maximumSize(idempotencyMaxSize)
+                .expireAfterWrite(Duration.ofHours(idempotencyTtlHours))
+                .build();
+    }
 
     @Override
-    @Transactional
-    public OrderDTO createOrder(OrderCreateDTO orderCreateDTO, Long studentId) {
+    public OrderDTO createOrder(OrderCreateDTO orderCreateDTO, Long studentId, String idempotencyKey) {
+        String key = StringUtils.hasText(idempotencyKey) ? idempotencyKey.trim() : null;
+        if (key != null && key.length() > 64) {
+            throw new IllegalArgumentException("Idempotency-Key长度不能超过64个字符");
+        }
+        String cacheKey = studentId + ":" + key;
+        if (key != null) {
+            OrderDTO cached = createdOrders.getIfPresent(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            Optional<Order> existing = orderRepository.findByStudentIdAndIdempotencyKey(studentId, key);
+            if (existing.isPresent()) {
+                return remember(cacheKey, existing.get());
+            }
+        }
+        
         // 获取学生信息
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + studentId));
@@ -54,25 +112,36 @@ public class OrderServiceImpl implements OrderService {
         Course course = courseRepository.findById(orderCreateDTO.getCourseId())
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + orderCreateDTO.getCourseId()));
         
-        // 检查是否已有待支付或已支付的订单
-        boolean hasActiveOrder = orderRepository.existsActiveOrderByStudentAndCourse(student, course);
-        if (hasActiveOrder) {
-            throw new IllegalStateException("您已经有该课程的待支付或已支付订单");
-        }
-        
-        // 创建订单
+        // 创建订单，同一学生同一课程只能有一个待支付或已支付订单，由activeKey唯一约束保证
         Order order = Order.builder()
                 .course(course)
                 .student(student)
                 .amount(course.getPrice())
-                .status("pending")
+                .status(OrderStatus.PENDING.getValue())
                 .bookingTime(orderCreateDTO.getBookingTime())
                 .remark(orderCreateDTO.getRemark())
+                .idempotencyKey(key)
                 .build();
         
-        Order savedOrder = orderRepository.save(order);
-        
-        return convertToDTO(savedOrder, false, null);
+        try {
+            Order savedOrder = transactionTemplate.execute(status -> orderRepository.save(order));
+            return key != null ? remember(cacheKey, savedOrder) : convertToDTO(savedOrder, false, null);
+        } catch (DataIntegrityViolationException e) {
+            // 并发的重复提交：相同幂等键返回先提交的订单，否则说明已有有效订单
+            if (key != null) {
+                Optional<Order> existing = orderRepository.findByStudentIdAndIdempotencyKey(studentId, key);
+                if (existing.isPresent()) {
+                    return remember(cacheKey, existing.get());
+                }
+            }
+            throw new IllegalStateException("您已经有该课程的待支付或已支付订单");
+        }
+    }
+    
+    private OrderDTO remember(String cacheKey, Order order) {
+        OrderDTO orderDTO = convertToDTO(order, false, null);
+        createdOrders.put(cacheKey, orderDTO);
+        return orderDTO;
     }
 
     @Override
@@ -89,14 +158,9 @@ public class OrderServiceImpl implements OrderService {
         }
         
         // 检查是否有评价
-        boolean hasReview = reviewRepository.existsByOrder(order);
-        ReviewDTO reviewDTO = null;
+        ReviewDTO reviewDTO = reviewService.getOrderReviews(Collections.singletonList(id)).get(id);
         
-        if (hasReview) {
-            reviewDTO = reviewService.getOrderReview(id);
-        }
-        
-        return convertToDTO(order, hasReview, reviewDTO);
+        return convertToDTO(order, reviewDTO != null, reviewDTO);
     }
 
     @Override
@@ -118,16 +182,22 @@ public class OrderServiceImpl implements OrderService {
             orders = orderRepository.findByStudent(student, pageable);
         }
         
-        return orders.map(order -> {
-            boolean hasReview = reviewRepository.existsByOrder(order);
-            ReviewDTO reviewDTO = null;
-            
-            if (hasReview) {
-                reviewDTO = reviewService.getOrderReview(order.getId());
-            }
-            
-            return convertToDTO(order, hasReview, reviewDTO);
-        });
+        return convertPageToDTO(orders);
+    }
+
+    @Override
+    public Slice<OrderDTO> getStudentOrdersAfter(Long studentId, String status, String keyword, String cursor, int size) {
+        User student = userRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + studentId));
+        
+        PageCursor after = PageCursor.decode(cursor, PageCursor.Kind.ORDERS);
+        Pageable pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        // 与分页查询一致，有关键字时不再按状态过滤
+        String trimmedKeyword = StringUtils.hasText(keyword) ? keyword.trim() : null;
+        String trimmedStatus = trimmedKeyword == null && StringUtils.hasText(status) ? status.trim() : null;
+        
+        return convertSliceToDTO(orderRepository.findStudentOrdersAfter(student, trimmedStatus, trimmedKeyword,
+                after.getCreatedAt(), after.getId(), pageable));
     }
 
     @Override
@@ -149,102 +219,138 @@ public class OrderServiceImpl implements OrderService {
             orders = orderRepository.findByTeacher(teacher, pageable);
         }
         
-        return orders.map(order -> {
-            boolean hasReview = reviewRepository.existsByOrder(order);
-            ReviewDTO reviewDTO = null;
-            
-            if (hasReview) {
-                reviewDTO = reviewService.getOrderReview(order.getId());
-            }
-            
-            return convertToDTO(order, hasReview, reviewDTO);
-        });
+        return convertPageToDTO(orders);
     }
 
     @Override
-    @Transactional
-    public OrderDTO payOrder(Long orderId, Long studentId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+    public Slice<OrderDTO> getTeacherOrdersAfter(Long teacherId, String status, String keyword, String cursor, int size) {
+        User teacher = userRepository.findById(teacherId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + teacherId));
         
-        // 验证学生身份
-        if (!order.getStudent().getId().equals(studentId)) {
-            throw new IllegalStateException("您没有权限支付该订单");
-        }
+        PageCursor after = PageCursor.decode(cursor, PageCursor.Kind.ORDERS);
+        Pageable pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        String trimmedKeyword = StringUtils.hasText(keyword) ? keyword.trim() : null;
+        String trimmedStatus = trimmedKeyword == null && StringUtils.hasText(status) ? status.trim() : null;
         
-        // 验证订单状态
-        if (!"pending".equals(order.getStatus())) {
+        return convertSliceToDTO(orderRepository.findTeacherOrdersAfter(teacher, trimmedStatus, trimmedKeyword,
+                after.getCreatedAt(), after.getId(), pageable));
+    }
+
+    @Override
+    @Transactional
+    public OrderDTO payOrder(Long orderId, Long studentId) {
+        // 条件更新：只有仍为待支付且属于该学生的订单会被支付，并发的支付和取消只有一个生效
+        // 转换的目标状态经过OrderStatus的转换表校验
+        OrderStatus from = OrderStatus.PENDING;
+        int updated = orderRepository.payByStudent(orderId, studentId,
+                from.getValue(), from.transitionTo(OrderStatus.PAID).getValue(), LocalDateTime.now());
+        Order order = findOrder(orderId);
+        
+        if (updated == 0) {
+            // 验证学生身份
+            if (!order.getStudent().getId().equals(studentId)) {
+                throw new IllegalStateException("您没有权限支付该订单");
+            }
             throw new IllegalStateException("订单不是待支付状态");
         }
         
-        // 支付逻辑 (实际项目中应该对接支付平台)
-        order.setStatus("paid");
-        order.setPaymentTime(LocalDateTime.now());
-        
-        Order updatedOrder = orderRepository.save(order);
-        
-        // 检查是否有评价（这里应该是假的，因为刚刚支付）
-        boolean hasReview = reviewRepository.existsByOrder(updatedOrder);
-        ReviewDTO reviewDTO = null;
+        // 计入课程选课人数
+        enrollmentCounter.onOrderPaid(order.getCourse().getId());
         
-        return convertToDTO(updatedOrder, hasReview, reviewDTO);
+        return convertToDTO(order, false, null);
     }
 
     @Override
     @Transactional
     public OrderDTO cancelOrder(Long orderId, Long userId, String reason) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-        
-        // 验证权限 - 学生可以取消pending订单，教师可以取消paid订单
-        boolean isStudent = order.getStudent().getId().equals(userId);
-        boolean isTeacher = order.getCourse().getTeacher().getId().equals(userId);
-        
-        if (!isStudent && !isTeacher) {
-            throw new IllegalStateException("您没有权限取消该订单");
-        }
-        
-        if (isStudent && !"pending".equals(order.getStatus())) {
-            throw new IllegalStateException("学生只能取消待支付的订单");
+        // 学生可以取消pending订单，教师可以取消paid订单，均为条件更新
+        LocalDateTime now = LocalDateTime.now();
+        boolean wasPaid = false;
+        OrderStatus studentFrom = OrderStatus.PENDING;
+        OrderStatus teacherFrom = OrderStatus.PAID;
+        int updated = orderRepository.cancelByStudent(orderId, userId,
+                studentFrom.getValue(), studentFrom.transitionTo(OrderStatus.CANCELLED).getValue(), now, reason);
+        if (updated == 0) {
+            updated = orderRepository.cancelByTeacher(orderId, userId,
+                    teacherFrom.getValue(), teacherFrom.transitionTo(OrderStatus.CANCELLED).getValue(), now, reason);
+            wasPaid = updated > 0;
         }
+        Order order = findOrder(orderId);
         
-        if (isTeacher && !"paid".equals(order.getStatus())) {
+        if (updated == 0) {
+            boolean isStudent = order.getStudent().getId().equals(userId);
+            boolean isTeacher = order.getCourse().getTeacher().getId().equals(userId);
+            if (!isStudent && !isTeacher) {
+                throw new IllegalStateException("您没有权限取消该订单");
+            }
+            if (isStudent && !studentFrom.getValue().equals(order.getStatus())) {
+                throw new IllegalStateException("学生只能取消待支付的订单");
+            }
             throw new IllegalStateException("教师只能取消已支付的订单");
         }
         
-        // 取消订单
-        order.setStatus("cancelled");
-        order.setCancellationTime(LocalDateTime.now());
-        order.setCancellationReason(reason);
-        
-        Order updatedOrder = orderRepository.save(order);
+        // 更新教师统计
+        teacherStatsService.onOrderCancelled(order.getCourse().getTeacher().getId());
+        if (wasPaid) {
+            enrollmentCounter.onPaidOrderCancelled(order.getCourse().getId());
+        }
         
-        return convertToDTO(updatedOrder, false, null);
+        return convertToDTO(order, false, null);
     }
 
     @Override
     @Transactional
     public OrderDTO completeOrder(Long orderId, Long teacherId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-        
-        // 验证教师身份
-        if (!order.getCourse().getTeacher().getId().equals(teacherId)) {
-            throw new IllegalStateException("您没有权限完成该订单");
-        }
-        
-        // 验证订单状态
-        if (!"paid".equals(order.getStatus())) {
+        OrderStatus from = OrderStatus.PAID;
+        int updated = orderRepository.completeByTeacher(orderId, teacherId,
+                from.getValue(), from.transitionTo(OrderStatus.COMPLETED).getValue(), LocalDateTime.now());
+        Order order = findOrder(orderId);
+        
+        if (updated == 0) {
+            // 验证教师身份
+            if (!order.getCourse().getTeacher().getId().equals(teacherId)) {
+                throw new IllegalStateException("您没有权限完成该订单");
+            }
             throw new IllegalStateException("订单不是已支付状态");
         }
         
-        // 完成订单
-        order.setStatus("completed");
-        order.setCompletionTime(LocalDateTime.now());
+        // 更新教师统计
+        teacherStatsService.onOrderCompleted(order.getCourse().getTeacher().getId(), order.getAmount());
         
-        Order updatedOrder = orderRepository.save(order);
+        return convertToDTO(order, false, null);
+    }
+    
+    // 状态转换之后读取订单，得到更新后的状态和时间
+    private Order findOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+    }
+    
+    // 辅助方法 - 转换一页订单，评价通过一次批量查询取回
+    private Page<OrderDTO> convertPageToDTO(Page<Order> orders) {
+        Map<Long, ReviewDTO> reviews = findReviews(orders);
+        
+        return orders.map(order -> {
+            ReviewDTO reviewDTO = reviews.get(order.getId());
+            return convertToDTO(order, reviewDTO != null, reviewDTO);
+        });
+    }
+    
+    private Slice<OrderDTO> convertSliceToDTO(Slice<Order> orders) {
+        Map<Long, ReviewDTO> reviews = findReviews(orders);
         
-        return convertToDTO(updatedOrder, false, null);
+        return orders.map(order -> {
+            ReviewDTO reviewDTO = reviews.get(order.getId());
+            return convertToDTO(order, reviewDTO != null, reviewDTO);
+        });
+    }
+    
+    // 一次查询取回本页所有订单的评价
+    private Map<Long, ReviewDTO> findReviews(Slice<Order> orders) {
+        List<Long> orderIds = orders.getContent().stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        return reviewService.getOrderReviews(orderIds);
     }
     
     // 辅助方法 - 转换为DTO
@@ -253,7 +359,7 @@ public class OrderServiceImpl implements OrderService {
                 .id(order.getId())
                 .courseId(order.getCourse().getId())
                 .courseTitle(order.getCourse().getTitle())
-                .courseCover(order.getCourse().getCover())
+                .courseCover(mediaService.toUrl(order.getCourse().getCover()))
                 .teacherName(order.getCourse().getTeacher().getRealName())
                 .amount(order.getAmount())
                 .status(order.getStatus())
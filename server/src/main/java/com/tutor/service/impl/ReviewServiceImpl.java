@@ -4,6 +4,7 @@ import com.tutor.dto.ReviewCreateDTO;
 import com.tutor.dto.ReviewDTO;
 import com.tutor.entity.Course;
 import com.tutor.entity.Order;
+import com.tutor.entity.OrderStatus;
 import com.tutor.entity.Review;
 import com.tutor.entity.User;
 import com.tutor.exception.ResourceNotFoundException;
@@ -11,15 +12,24 @@ import com.tutor.repository.CourseRepository;
 import com.tutor.repository.OrderRepository;
 import com.tutor.repository.ReviewRepository;
 import com.tutor.repository.UserRepository;
+import com.tutor.service.CourseRatingQueue;
+import com.tutor.service.MediaService;
 import com.tutor.service.ReviewService;
+import com.tutor.service.TeacherStatsService;
+import com.tutor.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -37,6 +47,15 @@ public class ReviewServiceImpl implements ReviewService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MediaService mediaService;
+    
+    @Autowired
+    private CourseRatingQueue courseRatingQueue;
+    
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+    
     @Override
     @Transactional
     public ReviewDTO createReview(ReviewCreateDTO reviewCreateDTO, Long studentId) {
@@ -50,7 +69,7 @@ public class ReviewServiceImpl implements ReviewService {
         }
         
         // 验证订单状态
-        if (!"completed".equals(order.getStatus())) {
+        if (!OrderStatus.COMPLETED.getValue().equals(order.getStatus())) {
             throw new IllegalStateException("您只能评价已完成的订单");
         }
         
@@ -71,7 +90,8 @@ public class ReviewServiceImpl implements ReviewService {
         Review savedReview = reviewRepository.save(review);
         
         // 更新课程评分
-        updateCourseRating(order.getCourse());
+        courseRatingQueue.onReviewCreated(order.getCourse().getId(), savedReview.getRating());
+        teacherStatsService.onReviewCreated(order.getCourse().getTeacher().getId(), savedReview.getRating());
         
         return convertToDTO(savedReview);
     }
@@ -95,6 +115,18 @@ public class ReviewServiceImpl implements ReviewService {
                 .map(this::convertToDTO);
     }
     
+    @Override
+    public Slice<ReviewDTO> getCourseReviewsAfter(Long courseId, String cursor, int size) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        
+        PageCursor after = PageCursor.decode(cursor, PageCursor.Kind.REVIEWS);
+        Pageable pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        
+        return reviewRepository.findByCourseAfter(course, after.getCreatedAt(), after.getId(), pageable)
+                .map(this::convertToDTO);
+    }
+    
     @Override
     public Page<ReviewDTO> getStudentReviews(Long studentId, int page, int size) {
         User student = userRepository.findById(studentId)
@@ -119,13 +151,25 @@ public class ReviewServiceImpl implements ReviewService {
     
     @Override
     public ReviewDTO getOrderReview(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+        ReviewDTO reviewDTO = getOrderReviews(Collections.singletonList(orderId)).get(orderId);
+        if (reviewDTO == null) {
+            throw new ResourceNotFoundException("Review not found for order with id: " + orderId);
+        }
         
-        Review review = reviewRepository.findByOrder(order)
-                .orElseThrow(() -> new ResourceNotFoundException("Review not found for order with id: " + orderId));
+        return reviewDTO;
+    }
+    
+    @Override
+    public Map<Long, ReviewDTO> getOrderReviews(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
         
-        return convertToDTO(review);
+        Map<Long, ReviewDTO> reviews = new HashMap<>();
+        for (Review review : reviewRepository.findByOrderIdIn(orderIds)) {
+            reviews.put(review.getOrder().getId(), convertToDTO(review));
+        }
+        return reviews;
     }
     
     @Override
@@ -149,13 +193,17 @@ public class ReviewServiceImpl implements ReviewService {
         }
         
         // 更新评价内容
+        double oldRating = review.getRating();
         review.setRating(reviewUpdateDTO.getRating());
         review.setContent(reviewUpdateDTO.getContent());
         
         Review updatedReview = reviewRepository.save(review);
         
         // 更新课程评分
-        updateCourseRating(review.getCourse());
+        if (oldRating != updatedReview.getRating()) {
+            courseRatingQueue.onReviewUpdated(review.getCourse().getId(), oldRating, updatedReview.getRating());
+            teacherStatsService.onReviewUpdated(review.getCourse().getTeacher().getId(), oldRating, updatedReview.getRating());
+        }
         
         return convertToDTO(updatedReview);
     }
@@ -172,14 +220,17 @@ public class ReviewServiceImpl implements ReviewService {
             throw new IllegalStateException("您没有权限删除该评价");
         }
         
-        // 获取课程，用于后续更新评分
-        Course course = review.getCourse();
+        // 获取课程和教师，用于后续更新评分
+        Long courseId = review.getCourse().getId();
+        Long teacherId = review.getCourse().getTeacher().getId();
+        double rating = review.getRating();
         
         // 删除评价
         reviewRepository.delete(review);
         
         // 更新课程评分
-        updateCourseRating(course);
+        courseRatingQueue.onReviewDeleted(courseId, rating);
+        teacherStatsService.onReviewDeleted(teacherId, rating);
     }
     
     // 辅助方法 - 转换为DTO
@@ -188,7 +239,7 @@ public class ReviewServiceImpl implements ReviewService {
                 .id(review.getId())
                 .courseId(review.getCourse().getId())
                 .courseTitle(review.getCourse().getTitle())
-                .courseCover(review.getCourse().getCover())
+                .courseCover(mediaService.toUrl(review.getCourse().getCover()))
                 .teacherName(review.getCourse().getTeacher().getRealName())
                 .orderId(review.getOrder().getId())
                 .studentName(review.getStudent().getRealName())
@@ -197,15 +248,4 @@ public class ReviewServiceImpl implements ReviewService {
                 .createdAt(review.getCreatedAt())
                 .build();
     }
-    
-    // 更新课程评分
-    @Transactional
-    private void updateCourseRating(Course course) {
-        Double avgRating = reviewRepository.calculateAverageRating(course);
-        
-        if (avgRating != null) {
-            course.setRating(avgRating);
-            courseRepository.save(course);
-        }
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.tutor.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+/**
+ * 基于本地文件系统的内容寻址存储
+ * 文件以内容的SHA-256哈希命名，相同内容只保存一份
+ */
+public class BlobStore {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+
+    public BlobStore(Path root) {
+        this.root = root;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new IllegalStateException("无法创建存储目录: " + root, e);
+        }
+    }
+
+    /**
+     * 流式写入内容并返回其哈希，超过maxBytes时抛出IllegalArgumentException
+     */
+    public String put(InputStream in, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            long total = 0;
+            byte[] buffer = new byte[8192];
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new IllegalArgumentException("文件大小超过限制: " + maxBytes + " 字节");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            String hash = toHex(digest.digest());
+            Path target = locate(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // 并发写入了相同内容，保留已有文件即可
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean exists(String hash) {
+        return isHash(hash) && Files.exists(locate(hash));
+    }
+
+    public InputStream open(String hash) throws IOException {
+        if (!isHash(hash)) {
+            throw new IllegalArgumentException("无效的文件标识: " + hash);
+        }
+        return Files.newInputStream(locate(hash));
+    }
+
+    public long size(String hash) throws IOException {
+        return Files.size(locate(hash));
+    }
+
+    /**
+     * 删除内容及其属性文件，调用方需确认内容已没有被引用
+     */
+    public void delete(String hash) throws IOException {
+        if (!isHash(hash)) {
+            throw new IllegalArgumentException("无效的文件标识: " + hash);
+        }
+        Path target = locate(hash);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(target.getParent(), hash + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (NoSuchFileException e) {
+            // 目录不存在说明内容已被删除
+        }
+    }
+
+    /**
+     * 保存与内容关联的短文本属性（如校验后的内容类型），写在内容文件旁的<hash>.<name>文件中
+     */
+    public void writeAttribute(String hash, String name, String value) throws IOException {
+        Files.write(attributePath(hash, name), value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 读取内容的属性，没有保存过时返回null
+     */
+    public String readAttribute(String hash, String name) throws IOException {
+        Path path = attributePath(hash, name);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public static boolean isHash(String value) {
+        return value != null && HASH_PATTERN.matcher(value).matches();
+    }
+
+    private Path attributePath(String hash, String name) {
+        if (!isHash(hash)) {
+            throw new IllegalArgumentException("无效的文件标识: " + hash);
+        }
+        return locate(hash).resolveSibling(hash + "." + name);
+    }
+
+    // 按哈希前两位分目录，避免单个目录下文件过多
+    private Path locate(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,95 @@
+package com.tutor.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 根据文件头识别允许上传的文件类型
+ * 只识别PNG、JPEG、GIF、WEBP图片和PDF，其他内容（包括HTML、SVG等可在浏览器中执行脚本的格式）一律返回null，
+ * 类型以文件内容为准，不采信客户端声明的Content-Type
+ */
+public final class FileTypes {
+
+    public static final String PNG = "image/png";
+    public static final String JPEG = "image/jpeg";
+    public static final String GIF = "image/gif";
+    public static final String WEBP = "image/webp";
+    public static final String PDF = "application/pdf";
+
+    public static final Set<String> IMAGE_TYPES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(PNG, JPEG, GIF, WEBP)));
+
+    // 资质证书允许的类型
+    public static final Set<String> DOCUMENT_TYPES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(PNG, JPEG, GIF, WEBP, PDF)));
+
+    // 识别所需的最大文件头长度
+    private static final int HEADER_LENGTH = 12;
+
+    private FileTypes() {
+    }
+
+    /**
+     * 识别字节内容的类型，无法识别时返回null
+     */
+    public static String detect(byte[] bytes) {
+        return detect(bytes, Math.min(bytes.length, HEADER_LENGTH));
+    }
+
+    /**
+     * 识别输入流的类型，读取后把流重置到开头，流必须支持mark
+     */
+    public static String detect(InputStream in) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("输入流不支持mark");
+        }
+        byte[] header = new byte[HEADER_LENGTH];
+        in.mark(HEADER_LENGTH);
+        int length = 0;
+        try {
+            int read;
+            while (length < HEADER_LENGTH && (read = in.read(header, length, HEADER_LENGTH - length)) != -1) {
+                length += read;
+            }
+        } finally {
+            in.reset();
+        }
+        return detect(header, length);
+    }
+
+    private static String detect(byte[] h, int length) {
+        if (startsWith(h, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return PNG;
+        }
+        if (startsWith(h, length, 0xFF, 0xD8, 0xFF)) {
+            return JPEG;
+        }
+        if (startsWith(h, length, 'G', 'I', 'F', '8', '7', 'a') || startsWith(h, length, 'G', 'I', 'F', '8', '9', 'a')) {
+            return GIF;
+        }
+        if (startsWith(h, length, 'R', 'I', 'F', 'F') && length >= 12
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P') {
+            return WEBP;
+        }
+        if (startsWith(h, length, '%', 'P', 'D', 'F', '-')) {
+            return PDF;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] h, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((h[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tutor.utils;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * 已解析并校验过的令牌声明
+ * 一次请求只解析一次令牌，后续的声明读取都使用此对象
+ */
+public final class JwtClaims {
+
+    private final String username;
+    private final Long userId;
+    private final String role;
+    private final Date expiration;
+
+    JwtClaims(Claims claims) {
+        Number uid = claims.get("uid", Number.class);
+        this.username = claims.getSubject();
+        this.userId = uid != null ? uid.longValue() : null;
+        this.role = claims.get("role", String.class);
+        this.expiration = claims.getExpiration();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * 用户ID，旧版令牌中不存在时为null
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
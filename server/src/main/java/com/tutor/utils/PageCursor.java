@@ -0,0 +1,123 @@
+package com.tutor.utils;
+
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页的位置，记录上一页最后一条记录的(createdAt, id)，只按ID排序的列表只记录id
+ * 对外编码为不透明的URL安全字符串，下一页从该位置之后继续查询，不需要OFFSET和COUNT。
+ * 游标中带有所属列表的类型，拿到其他列表的游标时按无效游标拒绝
+ */
+public final class PageCursor {
+
+    /**
+     * 游标所属的列表，timed表示按(createdAt, id)排序，否则只按id排序
+     */
+    public enum Kind {
+        COURSES(true),
+        ORDERS(true),
+        REVIEWS(true),
+        TEACHERS(false);
+
+        private final boolean timed;
+
+        Kind(boolean timed) {
+            this.timed = timed;
+        }
+    }
+
+    private static final char KIND_SEPARATOR = '~';
+
+    private static final PageCursor FIRST = new PageCursor(null, null);
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    private PageCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * 解析游标，空字符串表示第一页；游标无法解析或不属于kind指定的列表时抛出IllegalArgumentException
+     */
+    public static PageCursor decode(String token, Kind kind) {
+        if (token == null || token.trim().isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int kindEnd = value.indexOf(KIND_SEPARATOR);
+            if (kindEnd < 0 || !kind.name().equals(value.substring(0, kindEnd))) {
+                throw new IllegalArgumentException();
+            }
+            value = value.substring(kindEnd + 1);
+            if (!kind.timed) {
+                return new PageCursor(null, Long.valueOf(value));
+            }
+            int sep = value.lastIndexOf('|');
+            if (sep < 0) {
+                throw new IllegalArgumentException();
+            }
+            return new PageCursor(LocalDateTime.parse(value.substring(0, sep)), Long.valueOf(value.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+
+    public static String encode(Kind kind, LocalDateTime createdAt, Long id) {
+        if (!kind.timed) {
+            throw new IllegalArgumentException(kind + "列表的游标只记录id");
+        }
+        return encode(kind, createdAt + "|" + id);
+    }
+
+    public static String encode(Kind kind, Long id) {
+        if (kind.timed) {
+            throw new IllegalArgumentException(kind + "列表的游标需要记录创建时间");
+        }
+        return encode(kind, String.valueOf(id));
+    }
+
+    private static String encode(Kind kind, String value) {
+        String token = kind.name() + KIND_SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 根据本页最后一条记录生成下一页的游标，没有更多数据时返回null
+     */
+    public static <T> String next(Slice<T> slice, Kind kind, Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return null;
+        }
+        List<T> content = slice.getContent();
+        T last = content.get(content.size() - 1);
+        return encode(kind, createdAt.apply(last), id.apply(last));
+    }
+
+    /**
+     * 只按ID排序的列表使用，游标只记录最后一条记录的id
+     */
+    public static <T> String next(Slice<T> slice, Kind kind, Function<T, Long> id) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return null;
+        }
+        List<T> content = slice.getContent();
+        return encode(kind, id.apply(content.get(content.size() - 1)));
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tutor.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 课程搜索分词器
+ * 拉丁字母和数字按单词切分并转为小写；中日韩文字按相邻两字切分，
+ * 每段连续文字的最后一个字再单独作为一个词，这样任意单字都是某个词的前缀，
+ * 单字查询用前缀匹配即可命中，不需要为每个字都建立倒排
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 对文档字段分词，结果中保留重复的词用于计算词频
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        split(text, tokens, false);
+        return tokens;
+    }
+
+    /**
+     * 对查询关键词分词，结果去重，多字文字段不再追加末尾单字
+     */
+    public static List<String> tokenizeQuery(String text) {
+        List<String> tokens = new ArrayList<>();
+        split(text, tokens, true);
+        return new ArrayList<>(new LinkedHashSet<>(tokens));
+    }
+
+    private static void split(String text, List<String> tokens, boolean query) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String s = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < s.length()) {
+            int cp = s.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < s.length() && isCjk(s.codePointAt(i))) {
+                    i += Character.charCount(s.codePointAt(i));
+                }
+                splitCjk(s.substring(start, i), tokens, query);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < s.length()) {
+                    int c = s.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                tokens.add(s.substring(start, i));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    private static void splitCjk(String run, List<String> tokens, boolean query) {
+        int[] cps = run.codePoints().toArray();
+        for (int j = 0; j + 1 < cps.length; j++) {
+            tokens.add(new String(cps, j, 2));
+        }
+        if (!query || cps.length == 1) {
+            tokens.add(new String(cps, cps.length - 1, 1));
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tutor.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一次请求内的SQL统计：执行的语句条数、读取的行数、数据库耗时，以及每条SQL的执行次数
+ * 由SqlStatsFilter在请求开始时绑定到当前线程，SqlStatsDataSource执行语句时累加；
+ * 没有绑定的线程（定时任务、异步写回等）不统计
+ */
+public final class SqlStats {
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    // 按SQL文本分别计数，超过上限的不同SQL只计入总数，避免拼接参数的SQL占满内存
+    private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    private int statements;
+    private long rows;
+    private long nanos;
+    private final Map<String, Integer> executions = new HashMap<>();
+
+    private SqlStats() {
+    }
+
+    public static SqlStats begin() {
+        SqlStats stats = new SqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 当前线程绑定的统计，没有时返回null
+     */
+    public static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    public void onExecute(String sql, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        if (sql != null && (executions.size() < MAX_DISTINCT_STATEMENTS || executions.containsKey(sql))) {
+            executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public void onRow() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * 执行次数最多的SQL，同一条SQL在一个请求中重复执行多次通常是N+1查询；没有执行过SQL时返回null
+     */
+    public Map.Entry<String, Integer> mostRepeated() {
+        Map.Entry<String, Integer> top = null;
+        for (Map.Entry<String, Integer> entry : executions.entrySet()) {
+            if (top == null || entry.getValue() > top.getValue()) {
+                top = entry;
+            }
+        }
+        return top;
+    }
+}
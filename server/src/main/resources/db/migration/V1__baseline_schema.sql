@@ -0,0 +1,122 @@
+-- 基线表结构，与改用Flyway之前由ddl-auto根据实体建出的表一致
+-- 已有数据的库以此版本为基线（spring.flyway.baseline-version=1），不会执行本脚本，之后的变更见后续版本
+
+CREATE TABLE users (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    username    VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    real_name   VARCHAR(255),
+    email       VARCHAR(255),
+    phone       VARCHAR(255),
+    role        VARCHAR(255) NOT NULL,
+    create_time DATETIME(6),
+    update_time DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_phone UNIQUE (phone)
+) ENGINE = InnoDB;
+
+CREATE TABLE test (
+    id      BIGINT       NOT NULL AUTO_INCREMENT,
+    message VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE teachers (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT       NOT NULL,
+    education   VARCHAR(255),
+    major       VARCHAR(255),
+    subjects    TEXT,
+    experience  INTEGER,
+    status      VARCHAR(255) NOT NULL,
+    create_time DATETIME(6),
+    update_time DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_teachers_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE teacher_profiles (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT       NOT NULL,
+    education   VARCHAR(255),
+    major       VARCHAR(255),
+    subjects    TEXT,
+    experience  INTEGER,
+    bio         TEXT,
+    status      VARCHAR(255) NOT NULL,
+    create_time DATETIME(6),
+    update_time DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_teacher_profiles_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE courses (
+    id            BIGINT           NOT NULL AUTO_INCREMENT,
+    title         VARCHAR(255)     NOT NULL,
+    category      VARCHAR(255)     NOT NULL,
+    duration      INTEGER          NOT NULL,
+    price         DOUBLE PRECISION NOT NULL,
+    description   TEXT             NOT NULL,
+    cover         LONGTEXT         NOT NULL,
+    rating        DOUBLE PRECISION NOT NULL,
+    student_count INTEGER          NOT NULL,
+    teacher_id    BIGINT           NOT NULL,
+    created_at    DATETIME(6)      NOT NULL,
+    updated_at    DATETIME(6)      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_courses_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE orders (
+    id                  BIGINT           NOT NULL AUTO_INCREMENT,
+    course_id           BIGINT           NOT NULL,
+    student_id          BIGINT           NOT NULL,
+    amount              DOUBLE PRECISION NOT NULL,
+    status              VARCHAR(20)      NOT NULL,
+    booking_time        DATETIME(6)      NOT NULL,
+    payment_time        DATETIME(6),
+    completion_time     DATETIME(6),
+    cancellation_time   DATETIME(6),
+    cancellation_reason VARCHAR(255),
+    remark              TEXT,
+    created_at          DATETIME(6)      NOT NULL,
+    updated_at          DATETIME(6)      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_orders_course FOREIGN KEY (course_id) REFERENCES courses (id),
+    CONSTRAINT fk_orders_student FOREIGN KEY (student_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE reviews (
+    id         BIGINT           NOT NULL AUTO_INCREMENT,
+    course_id  BIGINT           NOT NULL,
+    student_id BIGINT           NOT NULL,
+    order_id   BIGINT           NOT NULL,
+    rating     DOUBLE PRECISION NOT NULL,
+    content    TEXT             NOT NULL,
+    created_at DATETIME(6)      NOT NULL,
+    updated_at DATETIME(6)      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reviews_course FOREIGN KEY (course_id) REFERENCES courses (id),
+    CONSTRAINT fk_reviews_student FOREIGN KEY (student_id) REFERENCES users (id),
+    CONSTRAINT fk_reviews_order FOREIGN KEY (order_id) REFERENCES orders (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE qualifications (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id        BIGINT       NOT NULL,
+    name           VARCHAR(255) NOT NULL,
+    type           VARCHAR(255) NOT NULL,
+    issuer         VARCHAR(255) NOT NULL,
+    description    TEXT,
+    file_url       LONGTEXT,
+    status         VARCHAR(255) NOT NULL,
+    comment        VARCHAR(255),
+    review_comment VARCHAR(255),
+    review_date    DATETIME(6),
+    upload_time    DATETIME(6),
+    update_time    DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_qualifications_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
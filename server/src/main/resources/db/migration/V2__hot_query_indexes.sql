@@ -0,0 +1,15 @@
+-- 高频查询条件的二级索引
+-- reviews(course_id, created_at)由V7中的idx_reviews_course_created覆盖
+-- reviews(order_id)和qualifications(user_id)已有外键约束自动建立的索引，不再重复建立
+
+-- 学生按状态查看订单，按创建时间倒序
+CREATE INDEX idx_orders_student_status_created ON orders (student_id, status, created_at);
+
+-- 按课程统计和筛选订单状态
+CREATE INDEX idx_orders_course_status ON orders (course_id, status);
+
+-- 管理员按状态查看资质，按上传时间排序
+CREATE INDEX idx_qualifications_status_upload ON qualifications (status, upload_time);
+
+-- 按分类浏览课程，按创建时间倒序
+CREATE INDEX idx_courses_category_created ON courses (category, created_at, id);
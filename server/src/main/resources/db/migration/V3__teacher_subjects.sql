@@ -0,0 +1,12 @@
+-- 教师科目关系表，替代对teachers.subjects的LIKE匹配
+-- 已有教师的科目在应用启动时由DataInitializationService补齐
+
+CREATE TABLE teacher_subjects (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    teacher_id BIGINT      NOT NULL,
+    subject    VARCHAR(50) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_teacher_subjects UNIQUE (teacher_id, subject),
+    INDEX idx_teacher_subjects_subject (subject, teacher_id),
+    CONSTRAINT fk_teacher_subjects_teacher FOREIGN KEY (teacher_id) REFERENCES teachers (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,17 @@
+-- 教师统计表：评分、订单完成/取消数和收入，由订单和评价写入时增量维护，定期根据明细重建
+-- teacher_id为教师的用户ID，与courses.teacher_id一致
+
+CREATE TABLE IF NOT EXISTS teacher_stats (
+    teacher_id       BIGINT           NOT NULL,
+    rating           DOUBLE PRECISION,
+    rating_sum       DOUBLE PRECISION NOT NULL,
+    rating_count     INTEGER          NOT NULL,
+    completed_orders INTEGER          NOT NULL,
+    cancelled_orders INTEGER          NOT NULL,
+    revenue          DOUBLE PRECISION NOT NULL,
+    updated_at       DATETIME(6)      NOT NULL,
+    PRIMARY KEY (teacher_id),
+    INDEX idx_teacher_stats_rating (rating, rating_count),
+    INDEX idx_teacher_stats_completed (completed_orders),
+    CONSTRAINT fk_teacher_stats_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,11 @@
+-- 待支付订单过期：按(status, created_at)顺序扫描超时的待支付订单
+CREATE INDEX idx_orders_status_created ON orders (status, created_at, id);
+
+-- 定时任务租约：多实例部署时同一任务同一时刻只由持有租约的实例执行
+-- locked_until之前owner持有租约，过期后任何实例都可以接管
+CREATE TABLE IF NOT EXISTS scheduler_locks (
+    name         VARCHAR(64)  NOT NULL,
+    owner        VARCHAR(128),
+    locked_until DATETIME(6)  NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
@@ -0,0 +1,2 @@
+-- 订单乐观锁版本号，每次状态转换加1
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,54 @@
+-- 将基线表结构升级到当前实体定义：基线之后实体新增的列、索引和约束，并根据已有数据回填
+
+-- 课程评分聚合列，按已有评价回填，星级分布与CourseRepository.REBUILD_RATING_SQL的四舍五入规则一致
+ALTER TABLE courses ADD COLUMN rating_sum DOUBLE PRECISION NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN rating_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN rating_star1 INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN rating_star2 INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN rating_star3 INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN rating_star4 INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN rating_star5 INTEGER NOT NULL DEFAULT 0;
+
+UPDATE courses c SET
+    rating_count = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id),
+    rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM reviews r WHERE r.course_id = c.id),
+    rating_star1 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating < 1.5),
+    rating_star2 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 1.5 AND r.rating < 2.5),
+    rating_star3 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 2.5 AND r.rating < 3.5),
+    rating_star4 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 3.5 AND r.rating < 4.5),
+    rating_star5 = (SELECT COUNT(*) FROM reviews r WHERE r.course_id = c.id AND r.rating >= 4.5);
+
+UPDATE courses SET rating = CASE WHEN rating_count > 0 THEN rating_sum / rating_count ELSE 5.0 END;
+
+-- 封面改为保存媒体存储中的哈希。原LONGTEXT列改名为cover_data，保留以Base64内联保存的历史封面，
+-- 由CourseCoverMigrationService在启动时写入媒体存储后清空；不超过64个字符的值直接移到新列
+ALTER TABLE courses RENAME COLUMN cover TO cover_data;
+ALTER TABLE courses MODIFY COLUMN cover_data LONGTEXT NULL;
+ALTER TABLE courses ADD COLUMN cover VARCHAR(64) NOT NULL DEFAULT '';
+UPDATE courses SET cover = cover_data, cover_data = NULL WHERE LENGTH(cover_data) <= 64;
+
+CREATE INDEX idx_courses_created ON courses (created_at, id);
+
+-- 订单有效键和幂等键。历史数据中同一学生同一课程有多个待支付或已支付订单时，只有最新的一个占用有效键
+ALTER TABLE orders ADD COLUMN active_key VARCHAR(64);
+ALTER TABLE orders ADD COLUMN idempotency_key VARCHAR(64);
+
+UPDATE orders SET active_key = CONCAT(student_id, ':', course_id)
+WHERE id IN (SELECT id FROM (SELECT MAX(id) AS id FROM orders
+                             WHERE status IN ('pending', 'paid')
+                             GROUP BY student_id, course_id) latest);
+
+ALTER TABLE orders ADD CONSTRAINT uk_orders_active UNIQUE (active_key);
+ALTER TABLE orders ADD CONSTRAINT uk_orders_idempotency UNIQUE (student_id, idempotency_key);
+
+CREATE INDEX idx_orders_student_created ON orders (student_id, created_at, id);
+CREATE INDEX idx_orders_course_created ON orders (course_id, created_at, id);
+CREATE INDEX idx_orders_student_course_status ON orders (student_id, course_id, status);
+
+CREATE INDEX idx_reviews_course_created ON reviews (course_id, created_at, id);
+
+-- 证书文件改存到证书存储，file_url只保留历史数据，由QualificationFileMigrationService在启动时迁移
+ALTER TABLE qualifications ADD COLUMN file_hash VARCHAR(64);
+ALTER TABLE qualifications ADD COLUMN file_name VARCHAR(255);
+ALTER TABLE qualifications ADD COLUMN file_size BIGINT;
+ALTER TABLE qualifications ADD COLUMN content_type VARCHAR(255);
@@ -0,0 +1,76 @@
+package com.tutor.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 迁移脚本中的索引能被高频查询用上
+ * 在H2内存数据库（MySQL兼容模式）上执行全部迁移脚本，对与仓库查询条件相同的SQL执行EXPLAIN，检查执行计划选中的索引
+ */
+class MigrationIndexTest {
+
+    private static final String URL = "jdbc:h2:mem:migration_index;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(URL, "sa", "");
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        connection.close();
+    }
+
+    // H2选择索引时不考虑等值条件之后的排序列，游标分页的查询带上游标条件(created_at < ?)检查；
+    // H2也不会倒序扫描索引，只按排序列取数据的查询按升序检查。reviews(order_id)和qualifications(user_id)由外键索引覆盖
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "SELECT * FROM orders WHERE student_id = 1 AND created_at < NOW() ORDER BY created_at DESC, id DESC LIMIT 10 | idx_orders_student_created",
+            "SELECT * FROM orders WHERE student_id = 1 AND status = 'paid' ORDER BY created_at DESC | idx_orders_student_status_created",
+            "SELECT * FROM orders WHERE course_id = 1 AND created_at < NOW() ORDER BY created_at DESC, id DESC LIMIT 10 | idx_orders_course_created",
+            "SELECT COUNT(*) FROM orders WHERE course_id = 1 AND status = 'paid' | idx_orders_course_status",
+            "SELECT COUNT(*) FROM orders WHERE student_id = 1 AND course_id = 1 AND status IN ('pending', 'paid') | idx_orders_student_course_status",
+            "SELECT id FROM orders WHERE status = 'pending' AND created_at < NOW() ORDER BY created_at, id | idx_orders_status_created",
+            "SELECT * FROM reviews WHERE course_id = 1 AND created_at < NOW() ORDER BY created_at DESC, id DESC LIMIT 10 | idx_reviews_course_created",
+            "SELECT * FROM reviews WHERE order_id IN (1, 2, 3) | fk_reviews_order",
+            "SELECT * FROM qualifications WHERE status = 'pending' ORDER BY upload_time | idx_qualifications_status_upload",
+            "SELECT * FROM qualifications WHERE user_id = 1 ORDER BY upload_time DESC | fk_qualifications_user",
+            "SELECT * FROM courses WHERE category = 'math' ORDER BY created_at DESC, id DESC | idx_courses_category_created",
+            "SELECT * FROM courses ORDER BY created_at, id LIMIT 10 | idx_courses_created",
+            "SELECT teacher_id FROM teacher_subjects WHERE subject = 'math' | idx_teacher_subjects_subject",
+            "SELECT * FROM teacher_stats ORDER BY rating, rating_count LIMIT 10 | idx_teacher_stats_rating",
+            "SELECT * FROM teacher_stats ORDER BY completed_orders LIMIT 10 | idx_teacher_stats_completed"
+    })
+    void hotQueryUsesIndex(String sql, String index) throws SQLException {
+        assertThat(explain(sql)).containsIgnoringCase(index);
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+}